@@ -0,0 +1,207 @@
+package com.effectivejava.item1.staticfactory;
+
+/**
+ * Parses "x, y" coordinate pairs from any CharSequence without splitting,
+ * trimming, regexes or exceptions.
+ *
+ * Bad input is the common failure case when ingesting coordinates, and
+ * throwing (and catching) NumberFormatException per bad line is far more
+ * expensive than parsing a good one. This parser reports errors through
+ * its return value and errorMessage() instead.
+ *
+ * Accepted number syntax: optional sign, digits with an optional decimal
+ * point, optional exponent (1e-3), or NaN / Infinity. Whitespace is
+ * allowed around both numbers.
+ *
+ * Numbers with at most 18 significant digits and a small exponent are
+ * converted exactly with one multiply or divide by a power of ten (the
+ * "Clinger fast path"); anything else goes to Double.parseDouble, after
+ * validation, so results are always correctly rounded.
+ *
+ * Instances are reusable but not thread-safe.
+ */
+final class CoordinateParser {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // 18 decimal digits always fit in a long (19 may overflow)
+    private static final int MAX_DIGITS = 18;
+
+    private double x;
+    private double y;
+    private double value;
+    private int pos;
+    private int from;
+    private String error;
+
+    /**
+     * Parses "x, y" from s[from, to).
+     *
+     * @return true on success; on failure, errorMessage() says why
+     */
+    boolean parse(CharSequence s, int from, int to) {
+        error = null;
+        this.from = from;
+        pos = from;
+        if (!parseNumber(s, to)) {
+            return false;
+        }
+        x = value;
+        skipWhitespace(s, to);
+        if (pos >= to || s.charAt(pos) != ',') {
+            return fail("expected ','");
+        }
+        pos++;
+        if (!parseNumber(s, to)) {
+            return false;
+        }
+        y = value;
+        skipWhitespace(s, to);
+        if (pos != to) {
+            return fail("unexpected character");
+        }
+        return true;
+    }
+
+    boolean parse(CharSequence s) {
+        return parse(s, 0, s.length());
+    }
+
+    double x() {
+        return x;
+    }
+
+    double y() {
+        return y;
+    }
+
+    /** Returns why the last parse failed, or null if it succeeded. */
+    String errorMessage() {
+        return error;
+    }
+
+    // Parses one number at pos (after optional whitespace) into value
+    private boolean parseNumber(CharSequence s, int to) {
+        skipWhitespace(s, to);
+        int start = pos;
+        boolean negative = false;
+        if (pos < to && (s.charAt(pos) == '-' || s.charAt(pos) == '+')) {
+            negative = s.charAt(pos) == '-';
+            pos++;
+        }
+        if (pos < to && (s.charAt(pos) == 'N' || s.charAt(pos) == 'I')) {
+            return parseSpecial(s, to, negative);
+        }
+
+        long mantissa = 0;
+        int digits = 0;          // Significant digits accumulated in mantissa
+        int dropped = 0;         // Integer digits that didn't fit in mantissa
+        int fractionDigits = 0;  // Fraction digits accumulated in mantissa
+        boolean sawDigit = false;
+        boolean exact = true;
+
+        while (pos < to && isDigit(s.charAt(pos))) {
+            sawDigit = true;
+            if (digits < MAX_DIGITS) {
+                mantissa = mantissa * 10 + (s.charAt(pos) - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                dropped++;
+                exact = false;
+            }
+            pos++;
+        }
+        if (pos < to && s.charAt(pos) == '.') {
+            pos++;
+            while (pos < to && isDigit(s.charAt(pos))) {
+                sawDigit = true;
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (s.charAt(pos) - '0');
+                    if (mantissa != 0) digits++;
+                    fractionDigits++;
+                } else {
+                    exact = false;
+                }
+                pos++;
+            }
+        }
+        if (!sawDigit) {
+            pos = start;
+            return fail("expected a number");
+        }
+
+        int exponent = 0;
+        if (pos < to && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < to && (s.charAt(pos) == '-' || s.charAt(pos) == '+')) {
+                negativeExponent = s.charAt(pos) == '-';
+                pos++;
+            }
+            if (pos >= to || !isDigit(s.charAt(pos))) {
+                return fail("malformed exponent");
+            }
+            while (pos < to && isDigit(s.charAt(pos))) {
+                if (exponent < 100_000) {  // Saturate; result is 0 or infinity anyway
+                    exponent = exponent * 10 + (s.charAt(pos) - '0');
+                }
+                pos++;
+            }
+            if (negativeExponent) exponent = -exponent;
+        }
+
+        int scale = exponent + dropped - fractionDigits;
+        if (exact && mantissa < (1L << 53) && scale >= -22 && scale <= 22) {
+            double d = mantissa;  // Exact: fits in 53 bits
+            d = scale < 0 ? d / POWERS_OF_TEN[-scale] : d * POWERS_OF_TEN[scale];
+            value = negative ? -d : d;
+        } else {
+            // Syntax already validated, so this can't throw
+            value = Double.parseDouble(s.subSequence(start, pos).toString());
+        }
+        return true;
+    }
+
+    private boolean parseSpecial(CharSequence s, int to, boolean negative) {
+        if (matches(s, to, "NaN")) {
+            value = Double.NaN;
+            return true;
+        }
+        if (matches(s, to, "Infinity")) {
+            value = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            return true;
+        }
+        return fail("expected a number");
+    }
+
+    private boolean matches(CharSequence s, int to, String word) {
+        if (to - pos < word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (s.charAt(pos + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        pos += word.length();
+        return true;
+    }
+
+    private void skipWhitespace(CharSequence s, int to) {
+        while (pos < to && Character.isWhitespace(s.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private boolean fail(String message) {
+        error = message + " at offset " + (pos - from);
+        return false;
+    }
+}
@@ -0,0 +1,275 @@
+package com.effectivejava.item1.staticfactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a file of "x, y" lines into two primitive columns, for inputs far
+ * too large to hold as Point objects (a Point costs ~32 bytes plus a
+ * reference; a coordinate pair in two double[] columns costs 16).
+ *
+ *   CoordinateReader.Coordinates c = CoordinateReader.read(path);
+ *   for (int i = 0; i < c.size(); i++) {
+ *       double x = c.xs()[i], y = c.ys()[i];
+ *   }
+ *
+ * DESIGN:
+ * - The file is memory-mapped in windows of up to 256 MiB, so there is no
+ *   copying through a read buffer and no per-line String; a line cut off at
+ *   the end of a window is re-read at the start of the next one
+ * - Bytes are parsed in place by CoordinateParser (input is ASCII; UTF-8
+ *   is fine, since non-ASCII bytes are never valid in a number anyway)
+ * - Malformed lines are counted and skipped, never thrown: one bad line
+ *   in a hundred million shouldn't abort the job. The first one's line
+ *   number and reason are kept for diagnostics
+ * - Blank lines are ignored; "\r\n" line endings are accepted
+ */
+public final class CoordinateReader {
+
+    static final int WINDOW_SIZE = 256 << 20;
+
+    // Rough bytes per line, to size the columns up front and avoid most regrowth
+    private static final int ESTIMATED_LINE_BYTES = 24;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private CoordinateReader() { }
+
+    /**
+     * Reads every "x, y" line of file.
+     *
+     * @throws IOException if the file can't be read
+     * @throws IllegalStateException if the file holds more coordinates than
+     *         fit in an array
+     */
+    public static Coordinates read(Path file) throws IOException {
+        return read(file, WINDOW_SIZE);
+    }
+
+    // windowSize is a parameter so that window boundaries can be exercised on small files
+    static Coordinates read(Path file, int windowSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            Columns columns = new Columns(
+                    (int) Math.max(16, Math.min(fileSize / ESTIMATED_LINE_BYTES, MAX_ARRAY_SIZE)));
+            CoordinateParser parser = new CoordinateParser();
+            ByteSequence bytes = new ByteSequence();
+
+            long position = 0;
+            long lineNumber = 0;
+            boolean skippingLongLine = false;
+            while (position < fileSize) {
+                int length = (int) Math.min(windowSize, fileSize - position);
+                boolean lastWindow = position + length == fileSize;
+                bytes.buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int lineStart = 0;
+                int newline;
+                while ((newline = bytes.indexOf('\n', lineStart, length)) >= 0) {
+                    if (skippingLongLine) {
+                        skippingLongLine = false;  // Tail of a line already counted as malformed
+                    } else {
+                        lineNumber++;
+                        parseLine(parser, bytes, lineStart, newline, lineNumber, columns);
+                    }
+                    lineStart = newline + 1;
+                }
+
+                if (lastWindow) {
+                    if (lineStart < length && !skippingLongLine) {
+                        lineNumber++;
+                        parseLine(parser, bytes, lineStart, length, lineNumber, columns);
+                    }
+                    position = fileSize;
+                } else if (lineStart == 0) {
+                    // No newline in a whole window: no coordinate line is that long
+                    if (!skippingLongLine) {
+                        lineNumber++;
+                        columns.error(lineNumber, "line longer than " + windowSize + " bytes");
+                        skippingLongLine = true;
+                    }
+                    position += length;
+                } else {
+                    position += lineStart;  // Re-read the partial last line in the next window
+                }
+            }
+            return columns.toCoordinates();
+        }
+    }
+
+    private static void parseLine(CoordinateParser parser, ByteSequence bytes,
+                                  int from, int to, long lineNumber, Columns columns) {
+        if (isBlank(bytes, from, to)) {
+            return;
+        }
+        if (parser.parse(bytes, from, to)) {
+            columns.add(parser.x(), parser.y());
+        } else {
+            columns.error(lineNumber, parser.errorMessage());
+        }
+    }
+
+    private static boolean isBlank(ByteSequence bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(bytes.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The coordinates read, as two parallel columns, plus a count of the
+     * lines that couldn't be parsed.
+     *
+     * xs() and ys() return the backing arrays, not copies - copying a
+     * column of hundreds of millions of doubles would double peak memory.
+     * Only the first size() elements are valid.
+     */
+    public static final class Coordinates {
+        private final double[] xs;
+        private final double[] ys;
+        private final int size;
+        private final long malformedLines;
+        private final long firstErrorLine;
+        private final String firstErrorMessage;
+
+        private Coordinates(double[] xs, double[] ys, int size,
+                            long malformedLines, long firstErrorLine, String firstErrorMessage) {
+            this.xs = xs;
+            this.ys = ys;
+            this.size = size;
+            this.malformedLines = malformedLines;
+            this.firstErrorLine = firstErrorLine;
+            this.firstErrorMessage = firstErrorMessage;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double[] xs() {
+            return xs;
+        }
+
+        public double[] ys() {
+            return ys;
+        }
+
+        /** Returns coordinate i as a Point. */
+        public Point point(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+            }
+            return Point.fromCartesian(xs[i], ys[i]);
+        }
+
+        public long malformedLines() {
+            return malformedLines;
+        }
+
+        /** Returns the 1-based line number of the first malformed line, or 0 if none. */
+        public long firstErrorLine() {
+            return firstErrorLine;
+        }
+
+        /** Returns why the first malformed line was rejected, or null if none. */
+        public String firstErrorMessage() {
+            return firstErrorMessage;
+        }
+
+        @Override
+        public String toString() {
+            return malformedLines == 0
+                    ? size + " coordinates"
+                    : size + " coordinates, " + malformedLines + " malformed lines (first: line "
+                            + firstErrorLine + ", " + firstErrorMessage + ")";
+        }
+    }
+
+    // Growable x/y columns plus error bookkeeping
+    private static final class Columns {
+        double[] xs;
+        double[] ys;
+        int size;
+        long malformedLines;
+        long firstErrorLine;
+        String firstErrorMessage;
+
+        Columns(int initialCapacity) {
+            xs = new double[initialCapacity];
+            ys = new double[initialCapacity];
+        }
+
+        void add(double x, double y) {
+            if (size == xs.length) {
+                grow();
+            }
+            xs[size] = x;
+            ys[size] = y;
+            size++;
+        }
+
+        void error(long lineNumber, String message) {
+            if (malformedLines++ == 0) {
+                firstErrorLine = lineNumber;
+                firstErrorMessage = message;
+            }
+        }
+
+        private void grow() {
+            if (size == MAX_ARRAY_SIZE) {
+                throw new IllegalStateException("Too many coordinates for one array: " + size);
+            }
+            int capacity = (int) Math.min((long) size + (size >> 1) + 1, MAX_ARRAY_SIZE);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+
+        Coordinates toCoordinates() {
+            return new Coordinates(xs, ys, size, malformedLines, firstErrorLine, firstErrorMessage);
+        }
+    }
+
+    // Presents the mapped bytes to CoordinateParser as chars, without decoding
+    private static final class ByteSequence implements CharSequence {
+        MappedByteBuffer buffer;
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        int indexOf(char c, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Only used on the parser's slow path, for a single number
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            StringBuilder sb = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                sb.append(charAt(i));
+            }
+            return sb;
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
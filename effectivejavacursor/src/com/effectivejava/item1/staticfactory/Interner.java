@@ -0,0 +1,131 @@
+package com.effectivejava.item1.staticfactory;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A canonicalizing cache for immutable value objects - the reason static
+ * factories like Boolean.valueOf and Integer.valueOf exist (Item 1:
+ * "they are not required to create a new object each time").
+ *
+ *   private static final Interner<Point> INTERNER = new Interner<>(4096, 24);
+ *
+ *   public static Point valueOf(double x, double y) {
+ *       return INTERNER.intern(new Point(x, y));
+ *   }
+ *
+ * DESIGN:
+ * - Bounded: a fixed-size table in which a value may sit in its home slot
+ *   or the one next to it; a new value takes whichever of the two is
+ *   free, or else replaces whatever occupied its home slot, so there is
+ *   no eviction bookkeeping and two values that hash to one slot don't
+ *   keep evicting each other
+ * - Concurrent and lock-free: slots are read and written atomically
+ * - Weak values: the table never keeps a value alive on its own
+ *
+ * The cache is lossy by design - two equal values may occasionally get
+ * different instances - so callers must still compare with equals().
+ * It pays off when many equal values are retained (it saves the memory of
+ * the duplicates); the short-lived candidate passed to intern() is cheap
+ * young-generation garbage.
+ *
+ * Values must be immutable, with consistent equals and hashCode.
+ *
+ * HOSTS: a class that interns its instances keeps one Interner in a
+ * private static field, used only by its valueOf, and may expose it
+ * through a static interner() method so callers can read the statistics
+ * below. instanceBytes is the host's shallow size: 24 bytes for a
+ * header, three shorts and a cached int hash; 32 for a header and two
+ * doubles. Other constructors and factories still create new instances,
+ * so interning is opt-in: only callers of valueOf share instances.
+ */
+public final class Interner<T> {
+
+    private final AtomicReferenceArray<WeakReference<T>> table;
+    private final int shift;
+    private final long instanceBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity number of slots; rounded up to a power of two, at least 2
+     * @param instanceBytes approximate size of one value, used to estimate memory saved
+     * @throws IllegalArgumentException if capacity is not positive or exceeds 2^30
+     */
+    public Interner(int capacity, long instanceBytes) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity));  // At least one pair of slots
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.table = new AtomicReferenceArray<>(size);
+        this.shift = 32 - Integer.numberOfTrailingZeros(size);
+        this.instanceBytes = instanceBytes;
+    }
+
+    /**
+     * Returns the canonical instance equal to value: a cached one if
+     * present, otherwise value itself, which becomes the cached instance.
+     */
+    public T intern(T value) {
+        // Fibonacci hashing: the top bits of hash * 2^32/phi. A multiply
+        // only carries bits upward, so the top half of the hash is folded
+        // down first; otherwise hash codes that differ only in their high
+        // bits (Double.hashCode of small whole numbers) would share a slot.
+        // The table can't spread hash codes that collide, so hosts need a
+        // well-mixed hashCode (see Point).
+        int h = value.hashCode();
+        h ^= h >>> 16;
+        int i = (h * 0x9E3779B9) >>> shift;
+        T home = get(i);
+        if (home != null && home.equals(value)) {
+            hits.increment();
+            return home;
+        }
+        T next = get(i ^ 1);
+        if (next != null && next.equals(value)) {
+            hits.increment();
+            return next;
+        }
+        misses.increment();
+        table.set(home != null && next == null ? i ^ 1 : i, new WeakReference<>(value));
+        return value;
+    }
+
+    private T get(int i) {
+        WeakReference<T> ref = table.get(i);
+        return ref == null ? null : ref.get();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Returns the fraction of intern calls that returned a cached instance. */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : h / (double) total;
+    }
+
+    /**
+     * Estimates the memory saved: each hit is one duplicate the caller
+     * didn't have to retain.
+     */
+    public long bytesSaved() {
+        return hits.sum() * instanceBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRate=%.1f%% saved~%d bytes",
+                hits(), misses(), hitRate() * 100, bytesSaved());
+    }
+}
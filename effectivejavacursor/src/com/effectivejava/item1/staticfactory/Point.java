@@ -11,6 +11,12 @@ public class Point {
     private final double x;
     private final double y;
     
+    // Shared instance returned by origin()
+    private static final Point ORIGIN = new Point(0, 0);
+    
+    // Cache for valueOf: up to 64K weakly held Points (see Interner)
+    private static final Interner<Point> INTERNER = new Interner<>(1 << 16, 32);
+    
     // Private constructor - forces use of static factory methods
     private Point(double x, double y) {
         this.x = x;
@@ -30,23 +36,36 @@ public class Point {
     }
     
     // Static factory method that can return null (constructor cannot)
+    // Accepts "x, y"; anything else - including extra fields - yields null.
+    // Parses in place: no split, no trim, no exception thrown on bad input.
     public static Point fromString(String coordinates) {
-        if (coordinates == null || coordinates.trim().isEmpty()) {
-            return null;
-        }
-        try {
-            String[] parts = coordinates.split(",");
-            double x = Double.parseDouble(parts[0].trim());
-            double y = Double.parseDouble(parts[1].trim());
-            return new Point(x, y);
-        } catch (Exception e) {
+        if (coordinates == null) {
             return null;
         }
+        CoordinateParser parser = new CoordinateParser();
+        return parser.parse(coordinates) ? new Point(parser.x(), parser.y()) : null;
     }
     
     // Static factory method that returns cached instance
     public static Point origin() {
-        return new Point(0, 0);
+        return ORIGIN;
+    }
+    
+    /**
+     * Static factory method that returns a canonical instance when one is
+     * cached. Use it where many equal points are retained; equal points
+     * may still be distinct objects, so compare with equals().
+     */
+    public static Point valueOf(double x, double y) {
+        return INTERNER.intern(new Point(x, y));
+    }
+    
+    /**
+     * Returns valueOf's Interner, whose hit count shows how often valueOf
+     * could hand back an existing Point instead of keeping a new one.
+     */
+    public static Interner<Point> interner() {
+        return INTERNER;
     }
     
     public double getX() {
@@ -57,6 +76,24 @@ public class Point {
         return y;
     }
     
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof Point)) return false;
+        Point p = (Point) o;
+        return Double.compare(p.x, x) == 0 && Double.compare(p.y, y) == 0;
+    }
+    
+    @Override
+    public int hashCode() {
+        // A double's entropy sits in the top bits of its long bits (sign,
+        // exponent, leading mantissa); rotating y's by 32 keeps it apart from
+        // x's, and the multiply carries both into the high word before the fold
+        long bits = Double.doubleToLongBits(x) ^ Long.rotateLeft(Double.doubleToLongBits(y), 32);
+        bits *= 0x9E3779B97F4A7C15L;
+        return (int) (bits ^ bits >>> 32);
+    }
+    
     @Override
     public String toString() {
         return String.format("Point(%.2f, %.2f)", x, y);
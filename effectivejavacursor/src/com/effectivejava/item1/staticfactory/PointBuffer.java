@@ -0,0 +1,234 @@
+package com.effectivejava.item1.staticfactory;
+
+import java.util.Arrays;
+
+/**
+ * A growable, mutable column store for many points: all the x coordinates
+ * in one double[], all the y coordinates in another ("struct of arrays").
+ *
+ * A million Points cost a million object headers plus a million references
+ * to chase; a PointBuffer of a million points is two flat arrays, 16 bytes
+ * per point, read sequentially. Point stays the value type for single
+ * points; PointBuffer is for batch work, and get(i) converts back.
+ *
+ * DESIGN:
+ * - Bulk operations are plain counted loops over primitive arrays with no
+ *   calls or branches in the body, the shape HotSpot's C2 compiler turns
+ *   into SIMD instructions on its own (translate, scale, rotate, distances)
+ * - Operations transform in place or write into a caller-supplied array,
+ *   so a pipeline of them allocates nothing
+ * - Static factories (Item 1) name the ways to build one: withCapacity,
+ *   fromPolar, from(Coordinates)
+ *
+ * Not thread-safe.
+ */
+public final class PointBuffer {
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private double[] xs;
+    private double[] ys;
+    private int size;
+
+    private PointBuffer(double[] xs, double[] ys, int size) {
+        this.xs = xs;
+        this.ys = ys;
+        this.size = size;
+    }
+
+    /**
+     * Returns an empty buffer with room for capacity points before it grows.
+     *
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public static PointBuffer withCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must be non-negative: " + capacity);
+        }
+        return new PointBuffer(new double[capacity], new double[capacity], 0);
+    }
+
+    /**
+     * Returns a buffer over the coordinates read by CoordinateReader. The
+     * columns are taken over, not copied; don't modify them through
+     * Coordinates afterwards.
+     */
+    public static PointBuffer from(CoordinateReader.Coordinates coordinates) {
+        return new PointBuffer(coordinates.xs(), coordinates.ys(), coordinates.size());
+    }
+
+    /**
+     * Bulk form of Point.fromPolar: point i is (radii[i], angles[i]).
+     *
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static PointBuffer fromPolar(double[] radii, double[] angles) {
+        if (radii.length != angles.length) {
+            throw new IllegalArgumentException(
+                    "Length mismatch: " + radii.length + " radii, " + angles.length + " angles");
+        }
+        int n = radii.length;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = radii[i] * Math.cos(angles[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            ys[i] = radii[i] * Math.sin(angles[i]);
+        }
+        return new PointBuffer(xs, ys, n);
+    }
+
+    public void add(double x, double y) {
+        if (size == xs.length) {
+            grow();
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    public void add(Point p) {
+        add(p.getX(), p.getY());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double x(int i) {
+        checkIndex(i);
+        return xs[i];
+    }
+
+    public double y(int i) {
+        checkIndex(i);
+        return ys[i];
+    }
+
+    /** Returns point i as a Point. */
+    public Point get(int i) {
+        checkIndex(i);
+        return Point.fromCartesian(xs[i], ys[i]);
+    }
+
+    /** Moves every point by (dx, dy). */
+    public PointBuffer translate(double dx, double dy) {
+        double[] xs = this.xs, ys = this.ys;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            xs[i] += dx;
+        }
+        for (int i = 0; i < n; i++) {
+            ys[i] += dy;
+        }
+        return this;
+    }
+
+    /** Scales every point by factor about the origin. */
+    public PointBuffer scale(double factor) {
+        double[] xs = this.xs, ys = this.ys;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            xs[i] *= factor;
+        }
+        for (int i = 0; i < n; i++) {
+            ys[i] *= factor;
+        }
+        return this;
+    }
+
+    /** Rotates every point counterclockwise by angle radians about the origin. */
+    public PointBuffer rotate(double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double[] xs = this.xs, ys = this.ys;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            xs[i] = x * cos - y * sin;
+            ys[i] = x * sin + y * cos;
+        }
+        return this;
+    }
+
+    /** Rotates every point counterclockwise by angle radians about (cx, cy). */
+    public PointBuffer rotate(double angle, double cx, double cy) {
+        return translate(-cx, -cy).rotate(angle).translate(cx, cy);
+    }
+
+    /**
+     * Writes the distance from each point to (x, y) into out[0, size()).
+     *
+     * @return out
+     * @throws IllegalArgumentException if out is shorter than size()
+     */
+    public double[] distancesTo(double x, double y, double[] out) {
+        if (out.length < size) {
+            throw new IllegalArgumentException("Output array too short: " + out.length + " < " + size);
+        }
+        double[] xs = this.xs, ys = this.ys;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            out[i] = Math.sqrt(dx * dx + dy * dy);
+        }
+        return out;
+    }
+
+    /** Returns the distances from each point to (x, y) in a new array. */
+    public double[] distancesTo(double x, double y) {
+        return distancesTo(x, y, new double[size]);
+    }
+
+    /**
+     * Returns the index of the point nearest to (x, y), or -1 if empty.
+     * Compares squared distances, so no square roots are taken.
+     */
+    public int nearestTo(double x, double y) {
+        double[] xs = this.xs, ys = this.ys;
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double d = dx * dx + dy * dy;
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /** Returns copies of the x and y columns, trimmed to size(). */
+    public double[] xs() {
+        return Arrays.copyOf(xs, size);
+    }
+
+    public double[] ys() {
+        return Arrays.copyOf(ys, size);
+    }
+
+    private void grow() {
+        if (size == MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("PointBuffer full: " + size);
+        }
+        int capacity = (int) Math.min((long) size + (size >> 1) + 16, MAX_ARRAY_SIZE);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PointBuffer(" + size + " points)";
+    }
+}
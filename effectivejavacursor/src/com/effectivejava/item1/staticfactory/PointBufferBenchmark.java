@@ -0,0 +1,119 @@
+package com.effectivejava.item1.staticfactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares a List of immutable Points with a PointBuffer on the same
+ * batch job: translate, rotate, then sum the distances to a fixed point.
+ *
+ * The List version has to create a new Point per point per step (Point is
+ * immutable); the PointBuffer version updates two double[] columns in place.
+ *
+ * Usage: PointBufferBenchmark [points] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first rounds are
+ * discarded as warm-up and the best of the rest is reported. Results vary
+ * with heap size and GC; run with e.g. -Xmx4g for the default 5M points.
+ */
+public class PointBufferBenchmark {
+
+    public static void main(String[] args) {
+        int points = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 1: PointBuffer Benchmark ===\n");
+        System.out.println("   " + points + " points, translate + rotate + distance sum, best of "
+                + (rounds - warmup) + " rounds after " + warmup + " warm-up\n");
+
+        Random random = new Random(42);
+        double[] xs = new double[points];
+        double[] ys = new double[points];
+        for (int i = 0; i < points; i++) {
+            xs[i] = random.nextDouble() * 1000;
+            ys[i] = random.nextDouble() * 1000;
+        }
+
+        long before = usedMemory();
+        List<Point> list = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            list.add(Point.fromCartesian(xs[i], ys[i]));
+        }
+        long listBytes = usedMemory() - before;
+
+        before = usedMemory();
+        PointBuffer buffer = PointBuffer.withCapacity(points);
+        for (int i = 0; i < points; i++) {
+            buffer.add(xs[i], ys[i]);
+        }
+        long bufferBytes = usedMemory() - before;
+        System.out.printf("   Memory: List<Point> ~%d MB, PointBuffer ~%d MB%n%n",
+                listBytes >> 20, bufferBytes >> 20);
+
+        double listSum = 0;
+        double bufferSum = 0;
+        long bestList = Long.MAX_VALUE;
+        long bestBuffer = Long.MAX_VALUE;
+        double[] distances = new double[points];
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            list = step(list);
+            listSum = distanceSum(list);
+            long listNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            buffer.translate(1, -1).rotate(0.01);
+            buffer.distancesTo(500, 500, distances);
+            bufferSum = sum(distances, points);
+            long bufferNanos = System.nanoTime() - start;
+
+            if (round >= warmup) {
+                bestList = Math.min(bestList, listNanos);
+                bestBuffer = Math.min(bestBuffer, bufferNanos);
+            }
+        }
+
+        System.out.printf("   List<Point>: %8.1f ms  (checksum %.6e)%n", bestList / 1e6, listSum);
+        System.out.printf("   PointBuffer: %8.1f ms  (checksum %.6e)%n", bestBuffer / 1e6, bufferSum);
+        System.out.printf("   Speedup:     %8.1fx%n", bestList / (double) bestBuffer);
+    }
+
+    // The object version of buffer.translate(1, -1).rotate(0.01)
+    private static List<Point> step(List<Point> points) {
+        double cos = Math.cos(0.01);
+        double sin = Math.sin(0.01);
+        List<Point> result = new ArrayList<>(points.size());
+        for (Point p : points) {
+            double x = p.getX() + 1;
+            double y = p.getY() - 1;
+            result.add(Point.fromCartesian(x * cos - y * sin, x * sin + y * cos));
+        }
+        return result;
+    }
+
+    private static double distanceSum(List<Point> points) {
+        double sum = 0;
+        for (Point p : points) {
+            double dx = p.getX() - 500;
+            double dy = p.getY() - 500;
+            sum += Math.sqrt(dx * dx + dy * dy);
+        }
+        return sum;
+    }
+
+    private static double sum(double[] values, int n) {
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
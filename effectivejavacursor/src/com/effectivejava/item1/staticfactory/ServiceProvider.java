@@ -1,42 +1,207 @@
 package com.effectivejava.item1.staticfactory;
 
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 /**
  * Example demonstrating service provider framework using static factory methods.
  * This pattern allows for flexible service registration and retrieval.
+ *
+ * The registry is safe for concurrent use:
+ * - Lookups are lock-free: one ConcurrentHashMap get, then a volatile read
+ * - Registration replaces an immutable per-name entry atomically
+ * - Providers may be registered lazily; the service is created on first use
+ * - Several versions of a service can coexist; getService(name) returns the latest
+ * - At startup, providers come from GeneratedServiceIndex, a table built
+ *   at compile time by ServiceIndexProcessor. If the index wasn't
+ *   generated (or -Deffectivejava.services.scan=true is set), providers
+ *   installed via ServiceLoader (module-info "provides") are discovered
+ *   instead, once, when this class is initialized
  */
 public class ServiceProvider {
-    private static final Map<String, Service> services = new HashMap<>();
-    
+
+    /** Version used when none is given. */
+    public static final int DEFAULT_VERSION = 1;
+
+    private static final ConcurrentMap<String, Registration> services = new ConcurrentHashMap<>();
+
+    // Generated by processor.ServiceIndexProcessor; registers providers in its static initializer
+    private static final String GENERATED_INDEX = "com.effectivejava.item1.staticfactory.GeneratedServiceIndex";
+
+    /** Set this system property to true to skip the generated index and scan instead. */
+    public static final String SCAN_PROPERTY = "effectivejava.services.scan";
+
+    static {
+        if (Boolean.getBoolean(SCAN_PROPERTY) || !loadGeneratedIndex()) {
+            discoverInstalledServices();
+        }
+    }
+
     // Static factory method for getting service instances
     public static Service getService(String name) {
-        Service service = services.get(name);
-        if (service == null) {
+        Registration registration = services.get(name);
+        if (registration == null) {
             throw new IllegalArgumentException("Service not found: " + name);
         }
-        return service;
+        return registration.latest.get();
+    }
+
+    /**
+     * Returns the given version of a service.
+     *
+     * @throws IllegalArgumentException if no such service or version is registered
+     */
+    public static Service getService(String name, int version) {
+        Registration registration = services.get(name);
+        LazyProvider provider = registration == null ? null : registration.versions.get(version);
+        if (provider == null) {
+            throw new IllegalArgumentException("Service not found: " + name + " version " + version);
+        }
+        return provider.get();
     }
-    
+
+    /**
+     * Returns the latest version of a service, or an empty Optional if none
+     * is registered. Cheaper than catching getService's exception on a miss.
+     */
+    public static Optional<Service> findService(String name) {
+        Registration registration = services.get(name);
+        return registration == null ? Optional.empty() : Optional.of(registration.latest.get());
+    }
+
     // Static factory method for registering services
     public static void registerService(String name, Service service) {
-        services.put(name, service);
+        registerService(name, DEFAULT_VERSION, service);
+    }
+
+    /**
+     * Registers a service instance under the given name and version,
+     * replacing any service already registered with both.
+     */
+    public static void registerService(String name, int version, Service service) {
+        Objects.requireNonNull(service);
+        register(name, version, new LazyProvider(() -> service));
+    }
+
+    /**
+     * Registers a provider that creates the service on first lookup. The
+     * provider is called at most once.
+     */
+    public static void registerProvider(String name, int version, Supplier<? extends Service> provider) {
+        register(name, version, new LazyProvider(provider));
+    }
+
+    private static void register(String name, int version, LazyProvider provider) {
+        Objects.requireNonNull(name);
+        services.compute(name, (k, old) -> old == null
+                ? new Registration(version, provider)
+                : old.with(version, provider));
+    }
+
+    // Initializing the index class runs its registerProvider calls. A single
+    // class load - no scanning, no annotation reflection, no reflective construction.
+    private static boolean loadGeneratedIndex() {
+        try {
+            Class.forName(GENERATED_INDEX, true, ServiceProvider.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;  // Compiled without ServiceIndexProcessor
+        }
     }
-    
+
+    // Registers the types found by ServiceLoader without instantiating them
+    private static void discoverInstalledServices() {
+        ServiceLoader.load(Service.class, ServiceProvider.class.getClassLoader()).stream().forEach(p -> {
+            Named named = p.type().getAnnotation(Named.class);
+            if (named != null) {
+                registerProvider(named.value(), named.version(), p::get);
+            }
+        });
+    }
+
+    // Immutable: every registration creates a new one, so readers need no locks
+    private static final class Registration {
+        final Map<Integer, LazyProvider> versions;
+        final LazyProvider latest;
+
+        Registration(int version, LazyProvider provider) {
+            this(Collections.singletonMap(version, provider));
+        }
+
+        private Registration(Map<Integer, LazyProvider> versions) {
+            this.versions = versions;
+            int max = Collections.max(versions.keySet());
+            this.latest = versions.get(max);
+        }
+
+        Registration with(int version, LazyProvider provider) {
+            Map<Integer, LazyProvider> copy = new HashMap<>(versions);
+            copy.put(version, provider);
+            return new Registration(Collections.unmodifiableMap(copy));
+        }
+    }
+
+    // Creates the service on first use (double-check idiom, Item 83)
+    private static final class LazyProvider {
+        private final Supplier<? extends Service> supplier;
+        private volatile Service instance;
+
+        LazyProvider(Supplier<? extends Service> supplier) {
+            this.supplier = Objects.requireNonNull(supplier);
+        }
+
+        Service get() {
+            Service result = instance;
+            if (result == null) {
+                synchronized (this) {
+                    result = instance;
+                    if (result == null) {
+                        instance = result = Objects.requireNonNull(supplier.get(), "Provider returned null");
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
     // Interface for services
     public interface Service {
         void execute();
     }
-    
+
+    /**
+     * Names a Service implementation, so ServiceIndexProcessor (at compile
+     * time) or ServiceLoader discovery (at startup) knows what to register
+     * it as.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    public @interface Named {
+        String value();
+        int version() default DEFAULT_VERSION;
+    }
+
     // Example service implementations
+    @Named("database")
     public static class DatabaseService implements Service {
         @Override
         public void execute() {
             System.out.println("Executing database service");
         }
     }
-    
+
+    @Named("email")
     public static class EmailService implements Service {
         @Override
         public void execute() {
@@ -44,5 +209,3 @@ public class ServiceProvider {
         }
     }
 }
-
-
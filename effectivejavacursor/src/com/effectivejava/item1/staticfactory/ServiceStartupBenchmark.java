@@ -0,0 +1,78 @@
+package com.effectivejava.item1.staticfactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cold-start benchmark for ServiceProvider: ServiceLoader discovery versus
+ * the compile-time GeneratedServiceIndex.
+ *
+ * Startup cost only shows up once per JVM, so each measurement runs in a
+ * fresh JVM that times class initialization plus the first lookup.
+ *
+ * Usage: ServiceStartupBenchmark [runs]
+ * Compile with ServiceIndexProcessor first (see its class comment), or
+ * both modes will fall back to scanning.
+ */
+public class ServiceStartupBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        System.out.println("=== Item 1: Service Startup Benchmark ===\n");
+        System.out.println("   Generated index present: " + indexPresent());
+        System.out.printf("   ServiceLoader scan: %8.1f us (median of %d JVMs)%n", median(runs, true), runs);
+        System.out.printf("   Generated index:    %8.1f us (median of %d JVMs)%n", median(runs, false), runs);
+    }
+
+    /**
+     * Runs in the child JVM: times ServiceProvider initialization and the
+     * first lookup, and prints the result in microseconds.
+     */
+    public static class Child {
+        public static void main(String[] args) {
+            long start = System.nanoTime();
+            ServiceProvider.getService("database");
+            System.out.println((System.nanoTime() - start) / 1e3);
+        }
+    }
+
+    private static double median(int runs, boolean scan) throws IOException, InterruptedException {
+        List<Double> times = new ArrayList<>(runs);
+        for (int i = 0; i < runs; i++) {
+            times.add(runChild(scan));
+        }
+        times.sort(null);
+        return times.get(runs / 2);
+    }
+
+    private static double runChild(boolean scan) throws IOException, InterruptedException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process p = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                "-D" + ServiceProvider.SCAN_PROPERTY + "=" + scan,
+                Child.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line = r.readLine();
+            if (p.waitFor() != 0 || line == null) {
+                throw new IllegalStateException("Child JVM failed: " + line);
+            }
+            return Double.parseDouble(line);
+        }
+    }
+
+    private static boolean indexPresent() {
+        try {
+            Class.forName("com.effectivejava.item1.staticfactory.GeneratedServiceIndex");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.effectivejava.item1.staticfactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 /**
  * Demonstration class showing various uses of static factory methods.
  * This class illustrates the advantages and use cases discussed in Item 1.
@@ -32,6 +37,34 @@ public class StaticFactoryDemo {
         System.out.println("Origin: " + origin);
         System.out.println("From String: " + fromString);
         System.out.println("Invalid (null): " + invalid);
+        System.out.println("origin() == origin(): " + (Point.origin() == Point.origin()) + " (shared constant)");
+        
+        // Canonicalizing cache - valueOf reuses equal instances
+        Point[] grid = new Point[10_000];
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] = Point.valueOf(i % 10, i % 7);  // Only 70 distinct points
+        }
+        System.out.println("valueOf(1, 2) == valueOf(1, 2): " + (Point.valueOf(1, 2) == Point.valueOf(1, 2)));
+        System.out.println("Intern cache: " + Point.interner());
+        System.out.println("fromString(\"1, 2, 3\"): " + Point.fromString("1, 2, 3") + " (strict: extra field)");
+        
+        // Bulk reading - millions of coordinates go into double[] columns, not Points
+        try {
+            Path file = Files.createTempFile("coordinates", ".csv");
+            try {
+                Files.write(file, List.of("1.5, 2.5", "-3e2, 4", "not a point", "", "0.125,  -0.25"));
+                CoordinateReader.Coordinates coordinates = CoordinateReader.read(file);
+                System.out.println("CoordinateReader: " + coordinates);
+                System.out.println("Second coordinate: " + coordinates.point(1));
+                PointBuffer buffer = PointBuffer.from(coordinates).translate(1, 1).rotate(Math.PI / 2);
+                System.out.println("PointBuffer after translate(1, 1) + rotate(90 deg): " + buffer.get(0)
+                        + ", nearest to origin: #" + buffer.nearestTo(0, 0));
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            System.out.println("CoordinateReader failed: " + e);
+        }
         System.out.println();
         
         // 4. Number example - returning subtypes
@@ -49,6 +82,12 @@ public class StaticFactoryDemo {
         
         ServiceProvider.getService("database").execute();
         ServiceProvider.getService("email").execute();
+        
+        // Lazy, versioned registration - the service is created on first lookup
+        ServiceProvider.registerProvider("email", 2, () -> () -> System.out.println("Executing email service v2"));
+        ServiceProvider.getService("email").execute();      // Latest version
+        ServiceProvider.getService("email", 1).execute();   // Pinned version
+        System.out.println("Missing service: " + ServiceProvider.findService("sms"));
         System.out.println();
         
         // 6. Advantages summary
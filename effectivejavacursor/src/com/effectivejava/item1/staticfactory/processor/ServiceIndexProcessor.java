@@ -0,0 +1,163 @@
+package com.effectivejava.item1.staticfactory.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Builds the service index for ServiceProvider at compile time.
+ *
+ * Finds every class annotated with @ServiceProvider.Named, checks that it
+ * can be instantiated directly, and generates GeneratedServiceIndex:
+ *
+ *   final class GeneratedServiceIndex {
+ *       static {
+ *           ServiceProvider.registerProvider("database", 1, ServiceProvider.DatabaseService::new);
+ *           ...
+ *       }
+ *   }
+ *
+ * At startup ServiceProvider loads that one class and is done: no
+ * ServiceLoader scan, no annotation reflection, no reflective construction.
+ *
+ * Usage (the processor must be compiled before the code it processes):
+ *   javac -d build/processor src/com/effectivejava/item1/staticfactory/processor/ServiceIndexProcessor.java
+ *   javac -processorpath build/processor \
+ *         -processor com.effectivejava.item1.staticfactory.processor.ServiceIndexProcessor \
+ *         -d bin $(find src -name '*.java')
+ *
+ * Without the processor, ServiceProvider falls back to ServiceLoader discovery.
+ */
+@SupportedAnnotationTypes(ServiceIndexProcessor.NAMED)
+public class ServiceIndexProcessor extends AbstractProcessor {
+
+    static final String PACKAGE = "com.effectivejava.item1.staticfactory";
+    static final String NAMED = PACKAGE + ".ServiceProvider.Named";
+    static final String SERVICE = PACKAGE + ".ServiceProvider.Service";
+    static final String INDEX = "GeneratedServiceIndex";
+
+    private boolean written;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement named = processingEnv.getElementUtils().getTypeElement(NAMED);
+        if (written || named == null) {
+            return false;
+        }
+        List<String> registrations = new ArrayList<>();
+        for (Element e : roundEnv.getElementsAnnotatedWith(named)) {
+            String registration = registrationFor(e);
+            if (registration != null) {
+                registrations.add(registration);
+            }
+        }
+        if (!registrations.isEmpty()) {
+            writeIndex(registrations);
+            written = true;
+        }
+        return true;
+    }
+
+    // Returns the registerProvider statement for e, or null after reporting an error
+    private String registrationFor(Element e) {
+        if (e.getKind() != ElementKind.CLASS) {
+            return error(e, "@Named applies only to classes");
+        }
+        TypeElement type = (TypeElement) e;
+        Set<Modifier> modifiers = type.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+            return error(e, "Service provider must be a public, non-abstract class");
+        }
+        if (type.getNestingKind().isNested() && !modifiers.contains(Modifier.STATIC)) {
+            return error(e, "Nested service provider must be static");
+        }
+        TypeMirror service = processingEnv.getElementUtils().getTypeElement(SERVICE).asType();
+        if (!processingEnv.getTypeUtils().isAssignable(type.asType(), service)) {
+            return error(e, "Service provider must implement ServiceProvider.Service");
+        }
+        boolean hasPublicNoArgConstructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && c.getModifiers().contains(Modifier.PUBLIC));
+        if (!hasPublicNoArgConstructor) {
+            return error(e, "Service provider needs a public no-argument constructor");
+        }
+
+        String name = null;
+        int version = 1;  // ServiceProvider.DEFAULT_VERSION
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(annotationOf(type)).entrySet()) {
+            ExecutableElement member = entry.getKey();
+            Object value = entry.getValue().getValue();
+            if (member.getSimpleName().contentEquals("value")) {
+                name = (String) value;
+            } else if (member.getSimpleName().contentEquals("version")) {
+                version = (Integer) value;
+            }
+        }
+        return "ServiceProvider.registerProvider(\"" + escape(name) + "\", " + version + ", "
+                + type.getQualifiedName() + "::new);";
+    }
+
+    private AnnotationMirror annotationOf(TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(NAMED)) {
+                return mirror;
+            }
+        }
+        throw new AssertionError("@Named not found on " + type);
+    }
+
+    private void writeIndex(List<String> registrations) {
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(PACKAGE + "." + INDEX);
+            try (Writer w = file.openWriter()) {
+                w.write("package " + PACKAGE + ";\n\n");
+                w.write("// Generated by " + ServiceIndexProcessor.class.getName() + ". Do not edit.\n");
+                w.write("final class " + INDEX + " {\n");
+                w.write("    static {\n");
+                for (String r : registrations) {
+                    w.write("        " + r + "\n");
+                }
+                w.write("    }\n\n");
+                w.write("    private " + INDEX + "() { }\n");
+                w.write("}\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + INDEX + ": " + e.getMessage());
+        }
+    }
+
+    private String error(Element e, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, e);
+        return null;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
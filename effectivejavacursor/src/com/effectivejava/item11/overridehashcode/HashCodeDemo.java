@@ -84,6 +84,16 @@ public class HashCodeDemo {
         System.out.println("   (All calls return the same value)");
         System.out.println();
         
+        System.out.println("8. AT SCALE - PACKED NUMBERS:");
+        long packed = PackedPhoneNumber.pack(707, 867, 5309);
+        StringBuilder line = new StringBuilder("   Packed into one long: ");
+        PackedPhoneNumber.formatTo(packed, line).append(" -> ").append(packed);
+        System.out.println(line);
+        PhoneNumberSet seen = new PhoneNumberSet();
+        System.out.println("   PhoneNumberSet.add: " + seen.add(packed) + ", again: " + seen.add(packed));
+        System.out.println("   (No object or boxed key per number; PackedPhoneNumber caches its hash)");
+        System.out.println();
+        
         System.out.println("=== Key Takeaways ===");
         System.out.println("1. Always override hashCode when you override equals");
         System.out.println("2. Follow the hashCode contract");
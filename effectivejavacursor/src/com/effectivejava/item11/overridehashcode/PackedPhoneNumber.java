@@ -0,0 +1,233 @@
+package com.effectivejava.item11.overridehashcode;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A phone number packed into a single long, for code that handles
+ * hundreds of millions of them.
+ *
+ *   long packed = PackedPhoneNumber.pack(707, 867, 5309);
+ *   PackedPhoneNumber.formatTo(packed, sb);               // 707-867-5309
+ *   PackedPhoneNumber pn = PackedPhoneNumber.fromPacked(packed);
+ *
+ * ENCODING: area code << 24 | prefix << 14 | line number - 10, 10 and 14
+ * bits, 34 in all. Packed values compare in the same order as the
+ * numbers (area code, then prefix, then line number), so a long[] of
+ * them can be sorted, searched and deduplicated without any objects; see
+ * PhoneNumberSet.
+ *
+ * The static methods work on packed longs directly. Instances wrap one,
+ * for when an object is needed (as a map key, say), and cache their hash
+ * code lazily, as Item 11 suggests for immutable classes: it is computed
+ * on the first call to hashCode, and a racy write of an int is harmless
+ * because every thread computes the same value.
+ *
+ * FORMATTING: formatTo writes "XXX-YYY-ZZZZ" into a caller's
+ * StringBuilder or byte[] without allocating, so a loop that writes
+ * millions of numbers can reuse one buffer. toString allocates only the
+ * String.
+ */
+public final class PackedPhoneNumber implements Comparable<PackedPhoneNumber> {
+
+    /** Length of the "XXX-YYY-ZZZZ" form. */
+    public static final int FORMATTED_LENGTH = 12;
+
+    private static final int AREA_SHIFT = 24;
+    private static final int PREFIX_SHIFT = 14;
+    static final long GOLDEN = 0x9E3779B97F4A7C15L;  // 2^64 / golden ratio, odd; also used by PhoneNumberSet
+
+    private final long packed;
+    private int hashCode;  // Automatically initialized to 0; computed on first use
+
+    private PackedPhoneNumber(long packed) {
+        this.packed = packed;
+    }
+
+    public static PackedPhoneNumber of(int areaCode, int prefix, int lineNum) {
+        return new PackedPhoneNumber(pack(areaCode, prefix, lineNum));
+    }
+
+    /**
+     * @throws IllegalArgumentException if packed isn't a value pack returned
+     */
+    public static PackedPhoneNumber fromPacked(long packed) {
+        return new PackedPhoneNumber(checkPacked(packed));
+    }
+
+    /**
+     * Parses the "XXX-YYY-ZZZZ" form.
+     *
+     * @throws IllegalArgumentException if s is not in that form
+     */
+    public static PackedPhoneNumber parse(CharSequence s) {
+        return new PackedPhoneNumber(parsePacked(s));
+    }
+
+    /**
+     * Packs a phone number into a long.
+     *
+     * @throws IllegalArgumentException if a field is out of range
+     */
+    public static long pack(int areaCode, int prefix, int lineNum) {
+        return (long) rangeCheck(areaCode, 999, "area code") << AREA_SHIFT
+                | rangeCheck(prefix, 999, "prefix") << PREFIX_SHIFT
+                | rangeCheck(lineNum, 9999, "line num");
+    }
+
+    /**
+     * Parses the "XXX-YYY-ZZZZ" form straight to a packed long.
+     *
+     * @throws IllegalArgumentException if s is not in that form
+     */
+    public static long parsePacked(CharSequence s) {
+        if (s.length() != FORMATTED_LENGTH || s.charAt(3) != '-' || s.charAt(7) != '-') {
+            throw new IllegalArgumentException("Invalid phone number format: " + s);
+        }
+        return (long) digits(s, 0, 3) << AREA_SHIFT | digits(s, 4, 3) << PREFIX_SHIFT | digits(s, 8, 4);
+    }
+
+    private static int digits(CharSequence s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new IllegalArgumentException("Invalid phone number format: " + s);
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static int rangeCheck(int val, int max, String arg) {
+        if (val < 0 || val > max) {
+            throw new IllegalArgumentException(arg + ": " + val);
+        }
+        return val;
+    }
+
+    // Also PhoneNumberSet's argument check
+    static long checkPacked(long packed) {
+        if (packed >>> (AREA_SHIFT + 10) != 0 || areaCode(packed) > 999 || prefix(packed) > 999
+                || lineNum(packed) > 9999) {
+            throw new IllegalArgumentException("Not a packed phone number: " + packed);
+        }
+        return packed;
+    }
+
+    public static int areaCode(long packed) {
+        return (int) (packed >>> AREA_SHIFT) & 0x3FF;
+    }
+
+    public static int prefix(long packed) {
+        return (int) (packed >>> PREFIX_SHIFT) & 0x3FF;
+    }
+
+    public static int lineNum(long packed) {
+        return (int) packed & 0x3FFF;
+    }
+
+    /**
+     * Returns a well-spread hash of a packed number: the value times an
+     * odd constant, high and low halves folded together. Packed numbers
+     * differ mostly in their low bits, which the multiply spreads upward.
+     */
+    public static int hash(long packed) {
+        long h = packed * GOLDEN;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** Appends the "XXX-YYY-ZZZZ" form to sb, and returns sb. */
+    public static StringBuilder formatTo(long packed, StringBuilder sb) {
+        int area = areaCode(packed);
+        int prefix = prefix(packed);
+        int line = lineNum(packed);
+        return sb.append((char) ('0' + area / 100)).append((char) ('0' + area / 10 % 10)).append((char) ('0' + area % 10))
+                .append('-')
+                .append((char) ('0' + prefix / 100)).append((char) ('0' + prefix / 10 % 10)).append((char) ('0' + prefix % 10))
+                .append('-')
+                .append((char) ('0' + line / 1000)).append((char) ('0' + line / 100 % 10))
+                .append((char) ('0' + line / 10 % 10)).append((char) ('0' + line % 10));
+    }
+
+    /**
+     * Writes the "XXX-YYY-ZZZZ" form as ASCII bytes into dst at offset,
+     * and returns the offset just past it.
+     *
+     * @throws IndexOutOfBoundsException if dst has fewer than
+     *         FORMATTED_LENGTH bytes from offset
+     */
+    public static int formatTo(long packed, byte[] dst, int offset) {
+        if (offset < 0 || offset > dst.length - FORMATTED_LENGTH) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " in " + dst.length + " bytes");
+        }
+        int area = areaCode(packed);
+        int prefix = prefix(packed);
+        int line = lineNum(packed);
+        dst[offset] = (byte) ('0' + area / 100);
+        dst[offset + 1] = (byte) ('0' + area / 10 % 10);
+        dst[offset + 2] = (byte) ('0' + area % 10);
+        dst[offset + 3] = '-';
+        dst[offset + 4] = (byte) ('0' + prefix / 100);
+        dst[offset + 5] = (byte) ('0' + prefix / 10 % 10);
+        dst[offset + 6] = (byte) ('0' + prefix % 10);
+        dst[offset + 7] = '-';
+        dst[offset + 8] = (byte) ('0' + line / 1000);
+        dst[offset + 9] = (byte) ('0' + line / 100 % 10);
+        dst[offset + 10] = (byte) ('0' + line / 10 % 10);
+        dst[offset + 11] = (byte) ('0' + line % 10);
+        return offset + FORMATTED_LENGTH;
+    }
+
+    /** Returns the "XXX-YYY-ZZZZ" form of a packed number. */
+    public static String toString(long packed) {
+        byte[] bytes = new byte[FORMATTED_LENGTH];
+        formatTo(packed, bytes, 0);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    public long packed() {
+        return packed;
+    }
+
+    public int areaCode() {
+        return areaCode(packed);
+    }
+
+    public int prefix() {
+        return prefix(packed);
+    }
+
+    public int lineNum() {
+        return lineNum(packed);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PackedPhoneNumber && ((PackedPhoneNumber) o).packed == packed;
+    }
+
+    /**
+     * Caches the hash code lazily. A number whose hash is 0 recomputes it
+     * on every call - one in four billion, and the computation is cheap.
+     */
+    @Override
+    public int hashCode() {
+        int result = hashCode;
+        if (result == 0) {
+            result = hash(packed);
+            hashCode = result;
+        }
+        return result;
+    }
+
+    @Override
+    public int compareTo(PackedPhoneNumber pn) {
+        return Long.compare(packed, pn.packed);
+    }
+
+    /** Returns the "XXX-YYY-ZZZZ" form. */
+    @Override
+    public String toString() {
+        return toString(packed);
+    }
+}
@@ -0,0 +1,131 @@
+package com.effectivejava.item11.overridehashcode;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deduplication and formatting of phone numbers:
+ * - Dedup: HashSet<PhoneNumberWithHashCode>, HashSet<PackedPhoneNumber>
+ *   and PhoneNumberSet, on numbers drawn with repeats from a smaller pool
+ * - Format: String.format, PackedPhoneNumber.toString, and formatTo into
+ *   one reused byte[]
+ *
+ * Usage: PhoneNumberBenchmark [numbers] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class PhoneNumberBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 11: Phone Number Hashing Benchmark ===\n");
+        System.out.println("   " + count + " numbers, best of " + (rounds - warmup)
+                + " rounds after " + warmup + " warm-up\n");
+
+        // Draw numbers from a pool half the size, so about 40% are repeats
+        Random random = new Random(42);
+        long[] pool = new long[count / 2];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = PackedPhoneNumber.pack(random.nextInt(1000), random.nextInt(1000), random.nextInt(10000));
+        }
+        long[] packed = new long[count];
+        PhoneNumberWithHashCode[] objects = new PhoneNumberWithHashCode[count];
+        PackedPhoneNumber[] wrapped = new PackedPhoneNumber[count];
+        for (int i = 0; i < count; i++) {
+            packed[i] = pool[random.nextInt(pool.length)];
+            objects[i] = new PhoneNumberWithHashCode(PackedPhoneNumber.areaCode(packed[i]),
+                    PackedPhoneNumber.prefix(packed[i]), PackedPhoneNumber.lineNum(packed[i]));
+            wrapped[i] = PackedPhoneNumber.fromPacked(packed[i]);
+        }
+
+        String[] dedupNames = { "HashSet<PhoneNumberWithHashCode>", "HashSet<PackedPhoneNumber>", "PhoneNumberSet" };
+        long[] bestDedup = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        int[] distinct = new int[3];
+        String[] formatNames = { "String.format", "PackedPhoneNumber.toString", "formatTo(byte[])" };
+        long[] bestFormat = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        long[] checksums = new long[3];
+        int formatCount = count / 10;
+        byte[] buffer = new byte[PackedPhoneNumber.FORMATTED_LENGTH];
+        for (int round = 0; round < rounds; round++) {
+            long[] dedupNanos = new long[3];
+            long[] formatNanos = new long[3];
+
+            long start = System.nanoTime();
+            Set<PhoneNumberWithHashCode> objectSet = new HashSet<>();
+            for (PhoneNumberWithHashCode pn : objects) {
+                objectSet.add(pn);
+            }
+            distinct[0] = objectSet.size();
+            dedupNanos[0] = System.nanoTime() - start;
+            objectSet = null;
+
+            start = System.nanoTime();
+            Set<PackedPhoneNumber> wrappedSet = new HashSet<>();
+            for (PackedPhoneNumber pn : wrapped) {
+                wrappedSet.add(pn);
+            }
+            distinct[1] = wrappedSet.size();
+            dedupNanos[1] = System.nanoTime() - start;
+            wrappedSet = null;
+
+            start = System.nanoTime();
+            PhoneNumberSet set = new PhoneNumberSet();
+            for (long pn : packed) {
+                set.add(pn);
+            }
+            distinct[2] = set.size();
+            dedupNanos[2] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long checksum = 0;
+            for (int i = 0; i < formatCount; i++) {
+                long pn = packed[i];
+                checksum += String.format("%03d-%03d-%04d", PackedPhoneNumber.areaCode(pn),
+                        PackedPhoneNumber.prefix(pn), PackedPhoneNumber.lineNum(pn)).charAt(11);
+            }
+            checksums[0] = checksum;
+            formatNanos[0] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            checksum = 0;
+            for (int i = 0; i < formatCount; i++) {
+                checksum += PackedPhoneNumber.toString(packed[i]).charAt(11);
+            }
+            checksums[1] = checksum;
+            formatNanos[1] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            checksum = 0;
+            for (int i = 0; i < formatCount; i++) {
+                PackedPhoneNumber.formatTo(packed[i], buffer, 0);
+                checksum += buffer[11];
+            }
+            checksums[2] = checksum;
+            formatNanos[2] = System.nanoTime() - start;
+
+            if (round >= warmup) {
+                for (int m = 0; m < 3; m++) {
+                    bestDedup[m] = Math.min(bestDedup[m], dedupNanos[m]);
+                    bestFormat[m] = Math.min(bestFormat[m], formatNanos[m]);
+                }
+            }
+        }
+
+        System.out.println("   Deduplication (" + distinct[2] + " distinct):");
+        for (int m = 0; m < 3; m++) {
+            System.out.printf("   %-34s %7.1f ms  %5.1fx  (distinct %d)%n", dedupNames[m],
+                    bestDedup[m] / 1e6, bestDedup[0] / (double) bestDedup[m], distinct[m]);
+        }
+        System.out.println();
+        System.out.println("   Formatting (" + formatCount + " numbers):");
+        for (int m = 0; m < 3; m++) {
+            System.out.printf("   %-34s %7.1f ns/number  %5.1fx  (checksum %d)%n", formatNames[m],
+                    bestFormat[m] / (double) formatCount, bestFormat[0] / (double) bestFormat[m], checksums[m]);
+        }
+    }
+}
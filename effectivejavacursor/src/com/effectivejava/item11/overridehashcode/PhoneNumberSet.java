@@ -0,0 +1,167 @@
+package com.effectivejava.item11.overridehashcode;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A set of phone numbers stored as packed longs (see PackedPhoneNumber),
+ * for deduplicating very many of them:
+ *
+ *   PhoneNumberSet seen = new PhoneNumberSet(expected);
+ *   for (long number : numbers) {
+ *       if (seen.add(number)) {
+ *           ... first time we've seen it ...
+ *       }
+ *   }
+ *
+ * A HashSet<PhoneNumberWithHashCode> spends a node (32 bytes), a phone
+ * number object (24 bytes) and a table slot on each number, and calls
+ * hashCode and equals through them. Here a number is one long in an
+ * open-addressing table kept at most half full: 8 to 16 bytes, and a
+ * lookup is a multiply, a shift and usually one array read.
+ *
+ * Slots hold packed value + 1, so that 0 can mark an empty slot even
+ * though 000-000-0000 packs to 0.
+ *
+ * Add-only: there is no remove. Holds up to 2^29 numbers. Not thread-safe.
+ */
+public final class PhoneNumberSet {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int MAX_SIZE = MAX_CAPACITY / 2;
+
+    private long[] slots;
+    private int shift;     // 64 - log2(slots.length)
+    private int size;
+
+    public PhoneNumberSet() {
+        this(16);
+    }
+
+    /**
+     * Returns an empty set that holds expectedSize numbers without growing.
+     *
+     * @throws IllegalArgumentException if expectedSize is negative or too large
+     */
+    public PhoneNumberSet(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Expected size: " + expectedSize);
+        }
+        // The smallest power of two at least twice expectedSize
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize * 2 - 1)) << 1));
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Adds a packed number, returning true if it wasn't already present.
+     *
+     * @throws IllegalArgumentException if packed isn't a packed phone number
+     */
+    public boolean add(long packed) {
+        long stored = PackedPhoneNumber.checkPacked(packed) + 1;
+        int mask = slots.length - 1;
+        for (int i = index(packed); ; i = (i + 1) & mask) {
+            long s = slots[i];
+            if (s == stored) {
+                return false;
+            }
+            if (s == 0) {
+                if (size == MAX_SIZE) {
+                    throw new IllegalStateException("PhoneNumberSet is full: " + size + " numbers");
+                }
+                slots[i] = stored;
+                if (++size > slots.length >> 1) {
+                    grow();  // Never at MAX_CAPACITY: size stays at most half of it
+                }
+                return true;
+            }
+        }
+    }
+
+    public boolean add(PackedPhoneNumber number) {
+        return add(number.packed());
+    }
+
+    public boolean contains(long packed) {
+        if (packed < 0) {
+            return false;
+        }
+        long stored = packed + 1;
+        int mask = slots.length - 1;
+        for (int i = index(packed); ; i = (i + 1) & mask) {
+            long s = slots[i];
+            if (s == stored) {
+                return true;
+            }
+            if (s == 0) {
+                return false;
+            }
+        }
+    }
+
+    public boolean contains(PackedPhoneNumber number) {
+        return contains(number.packed());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Passes every packed number in the set to action, in no particular order. */
+    public void forEach(LongConsumer action) {
+        for (long s : slots) {
+            if (s != 0) {
+                action.accept(s - 1);
+            }
+        }
+    }
+
+    /** Returns the packed numbers in the set, in no particular order. */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int n = 0;
+        for (long s : slots) {
+            if (s != 0) {
+                result[n++] = s - 1;
+            }
+        }
+        return result;
+    }
+
+    /** Returns the approximate memory used by the table, in bytes. */
+    public long sizeInBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+
+    // Fibonacci hashing: the high bits of packed times an odd constant
+    private int index(long packed) {
+        return (int) ((packed * PackedPhoneNumber.GOLDEN) >>> shift);
+    }
+
+    private void grow() {
+        long[] old = slots;
+        allocate(old.length << 1);
+        int mask = slots.length - 1;
+        for (long s : old) {
+            if (s != 0) {
+                int i = index(s - 1);
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = s;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneNumberSet(" + size + " numbers)";
+    }
+}
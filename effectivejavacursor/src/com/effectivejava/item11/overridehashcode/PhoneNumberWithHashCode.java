@@ -1,5 +1,7 @@
 package com.effectivejava.item11.overridehashcode;
 
+import com.effectivejava.item1.staticfactory.Interner;
+
 /**
  * Item 11: Always override hashCode when you override equals.
  * 
@@ -19,6 +21,10 @@ package com.effectivejava.item11.overridehashcode;
  */
 public class PhoneNumberWithHashCode {
     private final short areaCode, prefix, lineNum;
+    private int hashCode;  // Automatically initialized to 0; cached by hashCode()
+    
+    // Canonical numbers for valueOf; intern hashes each candidate, caching its hashCode
+    private static final Interner<PhoneNumberWithHashCode> INTERNER = new Interner<>(1 << 16, 24);
     
     public PhoneNumberWithHashCode(int areaCode, int prefix, int lineNum) {
         this.areaCode = rangeCheck(areaCode, 999, "area code");
@@ -26,6 +32,21 @@ public class PhoneNumberWithHashCode {
         this.lineNum = rangeCheck(lineNum, 9999, "line num");
     }
     
+    /**
+     * Static factory that returns a cached instance for numbers seen
+     * recently. Equal numbers may still be distinct objects.
+     */
+    public static PhoneNumberWithHashCode valueOf(int areaCode, int prefix, int lineNum) {
+        return INTERNER.intern(new PhoneNumberWithHashCode(areaCode, prefix, lineNum));
+    }
+    
+    /**
+     * Returns the Interner valueOf uses.
+     */
+    public static Interner<PhoneNumberWithHashCode> interner() {
+        return INTERNER;
+    }
+    
     private static short rangeCheck(int val, int max, String arg) {
         if (val < 0 || val > max) {
             throw new IllegalArgumentException(arg + ": " + val);
@@ -45,12 +66,20 @@ public class PhoneNumberWithHashCode {
     
     /**
      * GOOD: Proper hashCode implementation using the recipe.
+     * 
+     * The class is immutable, so the hash is computed on first use and
+     * cached (lazily initialized, Item 83). Unsynchronized, because every
+     * thread would compute the same value.
      */
     @Override
     public int hashCode() {
-        int result = Short.hashCode(areaCode);
-        result = 31 * result + Short.hashCode(prefix);
-        result = 31 * result + Short.hashCode(lineNum);
+        int result = hashCode;
+        if (result == 0) {
+            result = Short.hashCode(areaCode);
+            result = 31 * result + Short.hashCode(prefix);
+            result = 31 * result + Short.hashCode(lineNum);
+            hashCode = result;
+        }
         return result;
     }
     
@@ -63,9 +92,13 @@ public class PhoneNumberWithHashCode {
     //     return Objects.hash(areaCode, prefix, lineNum);
     // }
     
+    /**
+     * Returns the "XXX-YYY-ZZZZ" form, without String.format's parsing of
+     * the format string on every call.
+     */
     @Override
     public String toString() {
-        return String.format("%03d-%03d-%04d", areaCode, prefix, lineNum);
+        return PackedPhoneNumber.toString(PackedPhoneNumber.pack(areaCode, prefix, lineNum));
     }
 }
 
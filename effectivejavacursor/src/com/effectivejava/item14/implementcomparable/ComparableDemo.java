@@ -58,6 +58,14 @@ public class ComparableDemo {
         phoneNumbers.forEach(pn -> System.out.println("     " + pn));
         System.out.println();
         
+        System.out.println("   For millions of numbers, PhoneNumberSorter gives the same order");
+        System.out.println("   by radix-sorting packed keys, with no compareTo calls:");
+        List<PhoneNumberComparable> radixSorted = new ArrayList<>(phoneNumbers);
+        Collections.reverse(radixSorted);
+        PhoneNumberSorter.sort(radixSorted);
+        System.out.println("     " + radixSorted + " (same: " + radixSorted.equals(phoneNumbers) + ")");
+        System.out.println();
+        
         // TreeSet
         System.out.println("4. IN SORTED COLLECTIONS:");
         Set<PhoneNumberComparable> sortedSet = new TreeSet<>();
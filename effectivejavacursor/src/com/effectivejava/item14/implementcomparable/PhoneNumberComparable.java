@@ -1,6 +1,7 @@
 package com.effectivejava.item14.implementcomparable;
 
-import java.util.Objects;
+import com.effectivejava.item1.staticfactory.Interner;
+import com.effectivejava.item11.overridehashcode.PackedPhoneNumber;
 
 /**
  * Item 14: Consider implementing Comparable.
@@ -20,6 +21,10 @@ import java.util.Objects;
  */
 public class PhoneNumberComparable implements Comparable<PhoneNumberComparable> {
     private final short areaCode, prefix, lineNum;
+    private int hashCode;  // Automatically initialized to 0; cached by hashCode()
+    
+    // Backs valueOf
+    private static final Interner<PhoneNumberComparable> INTERNER = new Interner<>(1 << 16, 24);
     
     public PhoneNumberComparable(int areaCode, int prefix, int lineNum) {
         this.areaCode = rangeCheck(areaCode, 999, "area code");
@@ -27,6 +32,21 @@ public class PhoneNumberComparable implements Comparable<PhoneNumberComparable>
         this.lineNum = rangeCheck(lineNum, 9999, "line num");
     }
     
+    /**
+     * Static factory that returns a cached instance for numbers seen
+     * recently. Equal numbers may still be distinct objects.
+     */
+    public static PhoneNumberComparable valueOf(int areaCode, int prefix, int lineNum) {
+        return INTERNER.intern(new PhoneNumberComparable(areaCode, prefix, lineNum));
+    }
+    
+    /**
+     * For monitoring valueOf: see Interner.hitRate and Interner.bytesSaved.
+     */
+    public static Interner<PhoneNumberComparable> interner() {
+        return INTERNER;
+    }
+    
     private static short rangeCheck(int val, int max, String arg) {
         if (val < 0 || val > max) {
             throw new IllegalArgumentException(arg + ": " + val);
@@ -34,6 +54,15 @@ public class PhoneNumberComparable implements Comparable<PhoneNumberComparable>
         return (short) val;
     }
     
+    /**
+     * Returns this number packed into a long (see PackedPhoneNumber).
+     * Packed values are ordered as compareTo orders the numbers, which is
+     * what lets PhoneNumberSorter radix-sort them.
+     */
+    long packed() {
+        return PackedPhoneNumber.pack(areaCode, prefix, lineNum);
+    }
+    
     /**
      * GOOD: Proper compareTo implementation.
      * Compares area code first, then prefix, then line number.
@@ -71,14 +100,25 @@ public class PhoneNumberComparable implements Comparable<PhoneNumberComparable>
             && pn.areaCode == areaCode;
     }
     
+    /**
+     * The Item 11 recipe, cached on first use. (Objects.hash would box
+     * the three fields into a new varargs array on every call.)
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(areaCode, prefix, lineNum);
+        int result = hashCode;
+        if (result == 0) {
+            result = Short.hashCode(areaCode);
+            result = 31 * result + Short.hashCode(prefix);
+            result = 31 * result + Short.hashCode(lineNum);
+            hashCode = result;
+        }
+        return result;
     }
     
     @Override
     public String toString() {
-        return String.format("%03d-%03d-%04d", areaCode, prefix, lineNum);
+        return PackedPhoneNumber.toString(PackedPhoneNumber.pack(areaCode, prefix, lineNum));
     }
 }
 
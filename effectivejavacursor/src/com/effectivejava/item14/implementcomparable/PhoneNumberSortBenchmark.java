@@ -0,0 +1,95 @@
+package com.effectivejava.item14.implementcomparable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares sorting phone numbers through compareTo with PhoneNumberSorter:
+ * 1. Collections.sort(list)            vs PhoneNumberSorter.sort(list)
+ * 2. Arrays.parallelSort(array)        vs PhoneNumberSorter.parallelSort(array)
+ * 3. Arrays.sort / parallelSort(long[]) vs PhoneNumberSorter on packed values
+ *
+ * Usage: PhoneNumberSortBenchmark [numbers] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported. Each round
+ * sorts a fresh copy of the same shuffled input.
+ */
+public class PhoneNumberSortBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 14: Phone Number Sorting Benchmark ===\n");
+        System.out.println("   " + count + " numbers, " + Runtime.getRuntime().availableProcessors()
+                + " processors, best of " + (rounds - warmup) + " rounds after " + warmup + " warm-up\n");
+
+        Random random = new Random(42);
+        PhoneNumberComparable[] input = new PhoneNumberComparable[count];
+        long[] packedInput = new long[count];
+        for (int i = 0; i < count; i++) {
+            input[i] = new PhoneNumberComparable(random.nextInt(1000), random.nextInt(1000), random.nextInt(10000));
+            packedInput[i] = input[i].packed();
+        }
+
+        String[] names = {
+            "Collections.sort(list)", "PhoneNumberSorter.sort(list)",
+            "Arrays.parallelSort(array)", "PhoneNumberSorter.parallelSort(array)",
+            "Arrays.sort(long[])", "PhoneNumberSorter.sort(long[])",
+            "Arrays.parallelSort(long[])", "PhoneNumberSorter.parallelSort(long[])"
+        };
+        long[] best = new long[names.length];
+        Arrays.fill(best, Long.MAX_VALUE);
+        boolean[] sorted = new boolean[names.length];
+        for (int round = 0; round < rounds; round++) {
+            for (int m = 0; m < names.length; m++) {
+                List<PhoneNumberComparable> list = m < 2 ? new ArrayList<>(Arrays.asList(input)) : null;
+                PhoneNumberComparable[] array = m >= 2 && m < 4 ? input.clone() : null;
+                long[] packed = m >= 4 ? packedInput.clone() : null;
+
+                long start = System.nanoTime();
+                switch (m) {
+                    case 0: Collections.sort(list); break;
+                    case 1: PhoneNumberSorter.sort(list); break;
+                    case 2: Arrays.parallelSort(array); break;
+                    case 3: PhoneNumberSorter.parallelSort(array); break;
+                    case 4: Arrays.sort(packed); break;
+                    case 5: PhoneNumberSorter.sort(packed); break;
+                    case 6: Arrays.parallelSort(packed); break;
+                    default: PhoneNumberSorter.parallelSort(packed); break;
+                }
+                long nanos = System.nanoTime() - start;
+                if (round >= warmup) {
+                    best[m] = Math.min(best[m], nanos);
+                }
+                sorted[m] = list != null ? isSorted(list.toArray(new PhoneNumberComparable[0]))
+                        : array != null ? isSorted(array) : isSorted(packed);
+            }
+        }
+
+        for (int m = 0; m < names.length; m++) {
+            System.out.printf("   %-40s %8.1f ms%s  (sorted: %b)%n", names[m], best[m] / 1e6,
+                    m % 2 == 1 ? String.format("  %5.1fx", best[m - 1] / (double) best[m]) : "        ",
+                    sorted[m]);
+        }
+    }
+
+    private static boolean isSorted(PhoneNumberComparable[] a) {
+        for (int i = 1; i < a.length; i++) {
+            if (a[i - 1].compareTo(a[i]) > 0) return false;
+        }
+        return true;
+    }
+
+    private static boolean isSorted(long[] a) {
+        for (int i = 1; i < a.length; i++) {
+            if (a[i - 1] > a[i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,212 @@
+package com.effectivejava.item14.implementcomparable;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.stream.IntStream;
+
+/**
+ * Sorts phone numbers into their natural (compareTo) order without
+ * calling compareTo: a radix sort on an integer key.
+ *
+ *   PhoneNumberSorter.sort(list);            // Same result as Collections.sort(list)
+ *   PhoneNumberSorter.parallelSort(array);   // Same result as Arrays.parallelSort(array)
+ *
+ * A comparison sort makes about n log n compareTo calls, each three
+ * Short.compare calls behind a virtual call. But a phone number's order
+ * is the order of its packed form (PackedPhoneNumber: area code, prefix
+ * and line number side by side in 34 bits), so the numbers can be sorted
+ * by that integer instead, in three passes over the data, however many
+ * there are.
+ *
+ * HOW: each number's key is combined with its index into one long, key
+ * in the high 34 bits and index in the low 30, and those longs are
+ * LSD-radix-sorted 12 bits of key at a time - three counting passes
+ * whose 4096 counters fit in L1 cache. A pass in which every key has the
+ * same digit (all numbers in one area code, say) is skipped. The sorted
+ * indexes then say where each number goes. Like Collections.sort, the
+ * sort is stable.
+ *
+ * PARALLEL: parallelSort splits the array into chunks. Each pass counts
+ * every chunk's digits in parallel, works out where each chunk's share
+ * of each digit goes, then moves the chunks in parallel; the chunks
+ * write to separate ranges, so no locking is needed.
+ *
+ * sort(long[]) and parallelSort(long[]) sort packed values directly,
+ * with no index or object at all.
+ *
+ * Sorts up to 2^30 numbers; null elements throw NullPointerException.
+ */
+public final class PhoneNumberSorter {
+
+    private static final int DIGIT_BITS = 12;
+    private static final int DIGITS = 1 << DIGIT_BITS;
+    private static final int KEY_BITS = 34;
+    private static final int INDEX_BITS = 30;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int PARALLEL_THRESHOLD = 1 << 16;  // Below this, parallelSort sorts sequentially
+    private static final int MIN_CHUNK = 1 << 15;
+
+    private PhoneNumberSorter() { }  // Noninstantiable
+
+    /** Sorts the list into natural order, as Collections.sort would. */
+    public static void sort(List<PhoneNumberComparable> list) {
+        PhoneNumberComparable[] a = list.toArray(new PhoneNumberComparable[0]);
+        sort(a);
+        writeBack(list, a);
+    }
+
+    /** Sorts the list into natural order, sorting in parallel. */
+    public static void parallelSort(List<PhoneNumberComparable> list) {
+        PhoneNumberComparable[] a = list.toArray(new PhoneNumberComparable[0]);
+        parallelSort(a);
+        writeBack(list, a);
+    }
+
+    /** Sorts the array into natural order, as Arrays.sort would. */
+    public static void sort(PhoneNumberComparable[] a) {
+        sortObjects(a, false);
+    }
+
+    /** Sorts the array into natural order, as Arrays.parallelSort would. */
+    public static void parallelSort(PhoneNumberComparable[] a) {
+        sortObjects(a, true);
+    }
+
+    /**
+     * Sorts packed phone numbers (see PackedPhoneNumber) into ascending
+     * order, which is the numbers' natural order.
+     *
+     * @throws IllegalArgumentException if a value is not a packed number
+     */
+    public static void sort(long[] packed) {
+        checkPacked(packed);
+        radixSort(packed, 0, false);
+    }
+
+    /** sort(long[]), sorting in parallel. */
+    public static void parallelSort(long[] packed) {
+        checkPacked(packed);
+        radixSort(packed, 0, true);
+    }
+
+    private static void sortObjects(PhoneNumberComparable[] a, boolean parallel) {
+        int n = a.length;
+        if (n > 1 << INDEX_BITS) {
+            throw new IllegalArgumentException("Too many numbers to sort: " + n);
+        }
+        long[] entries = new long[n];
+        if (parallel && n >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, n).parallel().forEach(i -> entries[i] = a[i].packed() << INDEX_BITS | i);
+        } else {
+            for (int i = 0; i < n; i++) {
+                entries[i] = a[i].packed() << INDEX_BITS | i;
+            }
+        }
+        radixSort(entries, INDEX_BITS, parallel);
+        PhoneNumberComparable[] original = a.clone();
+        if (parallel && n >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, n).parallel().forEach(i -> a[i] = original[(int) (entries[i] & INDEX_MASK)]);
+        } else {
+            for (int i = 0; i < n; i++) {
+                a[i] = original[(int) (entries[i] & INDEX_MASK)];
+            }
+        }
+    }
+
+    private static void writeBack(List<PhoneNumberComparable> list, PhoneNumberComparable[] a) {
+        ListIterator<PhoneNumberComparable> it = list.listIterator();
+        for (PhoneNumberComparable pn : a) {
+            it.next();
+            it.set(pn);
+        }
+    }
+
+    private static void checkPacked(long[] packed) {
+        for (long p : packed) {
+            if (p >>> KEY_BITS != 0) {
+                throw new IllegalArgumentException("Not a packed phone number: " + p);
+            }
+        }
+    }
+
+    // Sorts a by the KEY_BITS bits starting at bit lowBit, stably
+    private static void radixSort(long[] a, int lowBit, boolean parallel) {
+        int n = a.length;
+        if (n < 2) {
+            return;
+        }
+        boolean inParallel = parallel && n >= PARALLEL_THRESHOLD;
+        long[] src = a;
+        long[] dst = new long[n];
+        for (int shift = lowBit; shift < lowBit + KEY_BITS; shift += DIGIT_BITS) {
+            boolean moved = inParallel ? parallelPass(src, dst, shift) : pass(src, dst, shift);
+            if (moved) {
+                long[] t = src;
+                src = dst;
+                dst = t;
+            }
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    // One counting-sort pass on the digit at shift; returns false, moving nothing, if all digits are equal
+    private static boolean pass(long[] src, long[] dst, int shift) {
+        int n = src.length;
+        int[] offsets = new int[DIGITS];
+        for (long v : src) {
+            offsets[(int) (v >>> shift) & (DIGITS - 1)]++;
+        }
+        int sum = 0;
+        for (int d = 0; d < DIGITS; d++) {
+            int count = offsets[d];
+            if (count == n) {
+                return false;
+            }
+            offsets[d] = sum;
+            sum += count;
+        }
+        for (long v : src) {
+            dst[offsets[(int) (v >>> shift) & (DIGITS - 1)]++] = v;
+        }
+        return true;
+    }
+
+    private static boolean parallelPass(long[] src, long[] dst, int shift) {
+        int n = src.length;
+        int chunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, n / MIN_CHUNK));
+        int[][] offsets = new int[chunks][DIGITS];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] counts = offsets[c];
+            for (int i = start(c, chunks, n), end = start(c + 1, chunks, n); i < end; i++) {
+                counts[(int) (src[i] >>> shift) & (DIGITS - 1)]++;
+            }
+        });
+        // Digit by digit, chunk by chunk, so that equal digits keep their order
+        int sum = 0;
+        for (int d = 0; d < DIGITS; d++) {
+            int digitStart = sum;
+            for (int c = 0; c < chunks; c++) {
+                int count = offsets[c][d];
+                offsets[c][d] = sum;
+                sum += count;
+            }
+            if (sum - digitStart == n) {
+                return false;
+            }
+        }
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] next = offsets[c];
+            for (int i = start(c, chunks, n), end = start(c + 1, chunks, n); i < end; i++) {
+                long v = src[i];
+                dst[next[(int) (v >>> shift) & (DIGITS - 1)]++] = v;
+            }
+        });
+        return true;
+    }
+
+    private static int start(int chunk, int chunks, int n) {
+        return (int) ((long) n * chunk / chunks);
+    }
+}
@@ -1,5 +1,7 @@
 package com.effectivejava.item17.minimizemutability;
 
+import com.effectivejava.item1.staticfactory.Interner;
+
 /**
  * Item 17: Minimize mutability.
  * 
@@ -25,11 +27,29 @@ public final class Complex {
     public static final Complex ONE = new Complex(1, 0);
     public static final Complex I = new Complex(0, 1);
     
+    // Frequently requested instances, cached by valueOf as Item 17 suggests
+    private static final Interner<Complex> INTERNER = new Interner<>(1 << 16, 32);
+    
     public Complex(double re, double im) {
         this.re = re;
         this.im = im;
     }
     
+    /**
+     * Static factory that returns a cached instance for frequently
+     * requested values. Equal values may still be distinct objects.
+     */
+    public static Complex valueOf(double re, double im) {
+        return INTERNER.intern(new Complex(re, im));
+    }
+    
+    /**
+     * Returns the cache valueOf draws on, to check that it earns its keep.
+     */
+    public static Interner<Complex> interner() {
+        return INTERNER;
+    }
+    
     // Accessors with no corresponding mutators
     public double realPart() { return re; }
     public double imaginaryPart() { return im; }
@@ -65,7 +85,12 @@ public final class Complex {
     
     @Override
     public int hashCode() {
-        return 31 * Double.hashCode(re) + Double.hashCode(im);
+        // Mixes all 64 bits of each part: summing Double.hashCodes, whose
+        // entropy is in the top bits, collides for small whole numbers,
+        // which would defeat the valueOf cache
+        long bits = Double.doubleToLongBits(re) ^ Long.rotateLeft(Double.doubleToLongBits(im), 32);
+        bits *= 0x9E3779B97F4A7C15L;
+        return (int) (bits ^ bits >>> 32);
     }
     
     @Override
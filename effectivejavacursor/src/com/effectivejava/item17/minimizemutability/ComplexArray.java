@@ -0,0 +1,303 @@
+package com.effectivejava.item17.minimizemutability;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed-length, mutable array of complex numbers, stored as two double[]
+ * columns (real parts and imaginary parts).
+ *
+ * Complex is immutable, so every plus or times allocates. That is the right
+ * default (Item 17), but a loop over a Complex[] - an FFT, a filter - then
+ * spends its time allocating and collecting. Item 17's answer is a mutable
+ * companion class for multistep operations, as StringBuilder is for String.
+ * ComplexArray is that companion for arrays of Complex.
+ *
+ * NAMING: the operations modify this array, so they are verbs (add,
+ * multiply) rather than Complex's prepositions (plus, times), which return
+ * new values. Each returns this, for chaining.
+ *
+ * DESIGN:
+ * - Split re/im columns: each kernel is a straight loop over primitive
+ *   arrays that HotSpot's C2 compiler can auto-vectorize
+ * - No allocation in any kernel or in fft()/inverseFft(), apart from a
+ *   per-length twiddle table that is computed once and shared
+ * - Arithmetic matches Complex exactly (same formulas), so results agree
+ *   bit for bit with the immutable version
+ *
+ * Not thread-safe.
+ */
+public final class ComplexArray {
+
+    private final double[] re;
+    private final double[] im;
+
+    private ComplexArray(double[] re, double[] im) {
+        this.re = re;
+        this.im = im;
+    }
+
+    /** Returns an array of n zeros. */
+    public static ComplexArray zeros(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Length must be non-negative: " + n);
+        }
+        return new ComplexArray(new double[n], new double[n]);
+    }
+
+    /** Returns an array holding the given values. */
+    public static ComplexArray of(Complex... values) {
+        ComplexArray a = zeros(values.length);
+        for (int i = 0; i < values.length; i++) {
+            a.set(i, values[i]);
+        }
+        return a;
+    }
+
+    /**
+     * Returns an array holding copies of the given parts.
+     *
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static ComplexArray of(double[] re, double[] im) {
+        if (re.length != im.length) {
+            throw new IllegalArgumentException(
+                    "Length mismatch: " + re.length + " real, " + im.length + " imaginary");
+        }
+        return new ComplexArray(re.clone(), im.clone());
+    }
+
+    public int length() {
+        return re.length;
+    }
+
+    public double re(int i) {
+        return re[i];
+    }
+
+    public double im(int i) {
+        return im[i];
+    }
+
+    /** Returns element i as an immutable Complex. */
+    public Complex get(int i) {
+        return new Complex(re[i], im[i]);
+    }
+
+    public ComplexArray set(int i, double re, double im) {
+        this.re[i] = re;
+        this.im[i] = im;
+        return this;
+    }
+
+    public ComplexArray set(int i, Complex c) {
+        return set(i, c.realPart(), c.imaginaryPart());
+    }
+
+    /** Returns a copy of this array. */
+    public ComplexArray copy() {
+        return new ComplexArray(re.clone(), im.clone());
+    }
+
+    /** Returns the elements as immutable Complex values. */
+    public Complex[] toArray() {
+        Complex[] result = new Complex[length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    /** this[i] = this[i] + other[i] */
+    public ComplexArray add(ComplexArray other) {
+        checkLength(other);
+        double[] re = this.re, im = this.im, ore = other.re, oim = other.im;
+        for (int i = 0; i < re.length; i++) {
+            re[i] += ore[i];
+            im[i] += oim[i];
+        }
+        return this;
+    }
+
+    /** this[i] = this[i] - other[i] */
+    public ComplexArray subtract(ComplexArray other) {
+        checkLength(other);
+        double[] re = this.re, im = this.im, ore = other.re, oim = other.im;
+        for (int i = 0; i < re.length; i++) {
+            re[i] -= ore[i];
+            im[i] -= oim[i];
+        }
+        return this;
+    }
+
+    /** this[i] = this[i] * other[i]; other may be this */
+    public ComplexArray multiply(ComplexArray other) {
+        checkLength(other);
+        double[] re = this.re, im = this.im, ore = other.re, oim = other.im;
+        for (int i = 0; i < re.length; i++) {
+            double r = re[i], m = im[i];
+            double or = ore[i], om = oim[i];  // Read before writing: ore is re when other == this
+            re[i] = r * or - m * om;
+            im[i] = r * om + m * or;
+        }
+        return this;
+    }
+
+    /** this[i] = this[i] / other[i]; other may be this */
+    public ComplexArray divide(ComplexArray other) {
+        checkLength(other);
+        double[] re = this.re, im = this.im, ore = other.re, oim = other.im;
+        for (int i = 0; i < re.length; i++) {
+            double r = re[i], m = im[i];
+            double or = ore[i], om = oim[i];  // Read before writing: ore is re when other == this
+            double tmp = or * or + om * om;
+            re[i] = (r * or + m * om) / tmp;
+            im[i] = (m * or - r * om) / tmp;
+        }
+        return this;
+    }
+
+    /** this[i] = conjugate(this[i]) */
+    public ComplexArray conjugate() {
+        double[] im = this.im;
+        for (int i = 0; i < im.length; i++) {
+            im[i] = -im[i];
+        }
+        return this;
+    }
+
+    /** this[i] = this[i] * factor */
+    public ComplexArray scale(double factor) {
+        double[] re = this.re, im = this.im;
+        for (int i = 0; i < re.length; i++) {
+            re[i] *= factor;
+            im[i] *= factor;
+        }
+        return this;
+    }
+
+    /**
+     * Replaces this array with its discrete Fourier transform (iterative
+     * radix-2 Cooley-Tukey, in place).
+     *
+     * @throws IllegalArgumentException if the length is not a power of two
+     */
+    public ComplexArray fft() {
+        transform(false);
+        return this;
+    }
+
+    /**
+     * Replaces this array with its inverse discrete Fourier transform,
+     * so that a.fft().inverseFft() gives back a (to rounding).
+     *
+     * @throws IllegalArgumentException if the length is not a power of two
+     */
+    public ComplexArray inverseFft() {
+        transform(true);
+        return scale(1.0 / Math.max(1, length()));
+    }
+
+    private void transform(boolean inverse) {
+        int n = length();
+        if (Integer.bitCount(n) > 1) {
+            throw new IllegalArgumentException("FFT length must be a power of two: " + n);
+        }
+        if (n <= 1) {
+            return;
+        }
+        double[] re = this.re, im = this.im;
+
+        // Bit-reversal permutation
+        int shift = Integer.numberOfLeadingZeros(n) + 1;
+        for (int i = 0; i < n; i++) {
+            int j = Integer.reverse(i) >>> shift;
+            if (i < j) {
+                double t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+
+        Twiddles w = Twiddles.forLength(n);
+        double sign = inverse ? 1 : -1;
+        for (int size = 2; size <= n; size <<= 1) {
+            int half = size >> 1;
+            int stride = n / size;  // Step through the table of n/2 twiddles
+            for (int start = 0; start < n; start += size) {
+                for (int k = 0; k < half; k++) {
+                    double wr = w.cos[k * stride];
+                    double wi = sign * w.sin[k * stride];
+                    int a = start + k;
+                    int b = a + half;
+                    double tr = re[b] * wr - im[b] * wi;
+                    double ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    private void checkLength(ComplexArray other) {
+        if (other.length() != length()) {
+            throw new IllegalArgumentException("Length mismatch: " + length() + " vs " + other.length());
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof ComplexArray)) return false;
+        ComplexArray a = (ComplexArray) o;
+        return Arrays.equals(re, a.re) && Arrays.equals(im, a.im);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(re) + Arrays.hashCode(im);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < length(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('(').append(re[i]).append(" + ").append(im[i]).append("i)");
+        }
+        return sb.append(']').toString();
+    }
+
+    // cos and sin of 2*pi*k/n for k < n/2. Immutable once built, so each
+    // is published through an atomic slot per power-of-two length; two
+    // threads may both build one, and either copy will do.
+    private static final class Twiddles {
+        private static final AtomicReferenceArray<Twiddles> BY_LOG_LENGTH =
+                new AtomicReferenceArray<>(Integer.SIZE);
+
+        final double[] cos;
+        final double[] sin;
+
+        private Twiddles(int n) {
+            this.cos = new double[n / 2];
+            this.sin = new double[n / 2];
+            for (int k = 0; k < n / 2; k++) {
+                double angle = 2 * Math.PI * k / n;
+                cos[k] = Math.cos(angle);
+                sin[k] = Math.sin(angle);
+            }
+        }
+
+        // n must be a power of two
+        static Twiddles forLength(int n) {
+            int log = Integer.numberOfTrailingZeros(n);
+            Twiddles t = BY_LOG_LENGTH.get(log);
+            if (t == null) {
+                t = new Twiddles(n);
+                BY_LOG_LENGTH.set(log, t);
+            }
+            return t;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.effectivejava.item17.minimizemutability;
+
+import java.util.Random;
+
+/**
+ * Compares an FFT over an array of immutable Complex values with the same
+ * FFT over a ComplexArray.
+ *
+ * Both use the same radix-2 algorithm and the same formulas; the only
+ * difference is that each butterfly of the Complex version allocates three
+ * new objects (times, plus, minus), n/2 * log2(n) times per transform.
+ *
+ * Usage: FftBenchmark [log2Length] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class FftBenchmark {
+
+    public static void main(String[] args) {
+        int log2 = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int n = 1 << log2;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 17: FFT Benchmark ===\n");
+        System.out.println("   n = " + n + ", best of " + (rounds - warmup) + " rounds after "
+                + warmup + " warm-up\n");
+
+        Random random = new Random(42);
+        Complex[] signal = new Complex[n];
+        for (int i = 0; i < n; i++) {
+            signal[i] = new Complex(random.nextGaussian(), random.nextGaussian());
+        }
+        ComplexArray array = ComplexArray.of(signal);
+
+        long bestObjects = Long.MAX_VALUE;
+        long bestArray = Long.MAX_VALUE;
+        Complex[] objectResult = null;
+        ComplexArray arrayResult = null;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            objectResult = fft(signal.clone());
+            long objectNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            arrayResult = array.copy().fft();
+            long arrayNanos = System.nanoTime() - start;
+
+            if (round >= warmup) {
+                bestObjects = Math.min(bestObjects, objectNanos);
+                bestArray = Math.min(bestArray, arrayNanos);
+            }
+        }
+
+        long allocated = (long) (n / 2) * log2 * 3;
+        System.out.printf("   Complex[]:    %8.1f ms  (~%d Complex objects per transform)%n",
+                bestObjects / 1e6, allocated);
+        System.out.printf("   ComplexArray: %8.1f ms  (no per-element allocation)%n", bestArray / 1e6);
+        System.out.printf("   Speedup:      %8.1fx%n", bestObjects / (double) bestArray);
+        System.out.println("   Same result:  " + ComplexArray.of(objectResult).equals(arrayResult));
+
+        ComplexArray roundTrip = arrayResult.inverseFft();
+        double maxError = 0;
+        for (int i = 0; i < n; i++) {
+            maxError = Math.max(maxError, Math.abs(roundTrip.re(i) - signal[i].realPart()));
+            maxError = Math.max(maxError, Math.abs(roundTrip.im(i) - signal[i].imaginaryPart()));
+        }
+        System.out.printf("   inverseFft(fft(x)) max error: %.2e%n", maxError);
+    }
+
+    // The same algorithm as ComplexArray.fft, written with immutable Complex
+    static Complex[] fft(Complex[] a) {
+        int n = a.length;
+        int shift = Integer.numberOfLeadingZeros(n) + 1;
+        for (int i = 0; i < n; i++) {
+            int j = Integer.reverse(i) >>> shift;
+            if (i < j) {
+                Complex t = a[i]; a[i] = a[j]; a[j] = t;
+            }
+        }
+        Complex[] twiddles = new Complex[n / 2];
+        for (int k = 0; k < n / 2; k++) {
+            double angle = 2 * Math.PI * k / n;
+            twiddles[k] = new Complex(Math.cos(angle), -Math.sin(angle));
+        }
+        for (int size = 2; size <= n; size <<= 1) {
+            int half = size >> 1;
+            int stride = n / size;
+            for (int start = 0; start < n; start += size) {
+                for (int k = 0; k < half; k++) {
+                    Complex t = a[start + k + half].times(twiddles[k * stride]);
+                    a[start + k + half] = a[start + k].minus(t);
+                    a[start + k] = a[start + k].plus(t);
+                }
+            }
+        }
+        return a;
+    }
+}
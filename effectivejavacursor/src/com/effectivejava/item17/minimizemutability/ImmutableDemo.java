@@ -44,6 +44,20 @@ public class ImmutableDemo {
         System.out.println("   Complex.ONE = " + Complex.ONE);
         System.out.println("   Complex.I = " + Complex.I);
         System.out.println("   (Can be shared freely - no need to create new instances)");
+        System.out.println("   Complex.valueOf(1, 2) == Complex.valueOf(1, 2): "
+                + (Complex.valueOf(1, 2) == Complex.valueOf(1, 2)) + " (cached by static factory)");
+        System.out.println();
+        
+        // Mutable companion for bulk work
+        System.out.println("5. MUTABLE COMPANIONS (ComplexArray, MutableComplex):");
+        ComplexArray signal = ComplexArray.of(Complex.ONE, Complex.ZERO, Complex.ZERO, Complex.ZERO);
+        System.out.println("   fft([1, 0, 0, 0]) = " + signal.fft());
+        ComplexArray products = ComplexArray.of(a, b).multiply(ComplexArray.of(b, a));
+        System.out.println("   [a, b] * [b, a] = " + products + " (in place, no Complex per element)");
+        System.out.println("   a.times(b) = " + a.times(b) + " (same result, one new object)");
+        MutableComplex acc = new MutableComplex(a).times(b).plus(a);
+        System.out.println("   new MutableComplex(a).times(b).plus(a) = " + acc.toComplex()
+                + " (one object for the whole chain)");
         System.out.println();
         
         System.out.println("=== Key Takeaways ===");
@@ -0,0 +1,115 @@
+package com.effectivejava.item17.minimizemutability;
+
+/**
+ * Mutable companion class for Complex, as StringBuilder is for String
+ * (Item 17: "provide a public mutable companion class" for multistep
+ * operations that would otherwise create a new object at every step).
+ *
+ *   // Horner's rule: no Complex is created until the end
+ *   MutableComplex acc = new MutableComplex();
+ *   for (Complex c : coefficients) {
+ *       acc.times(z).plus(c);
+ *   }
+ *   Complex result = acc.toComplex();
+ *
+ * Method names mirror Complex, so a chain converts by changing only its
+ * receiver. Each method updates this and returns this.
+ *
+ * The JIT can sometimes eliminate Complex allocations by escape analysis,
+ * but not reliably: a chain that is too long to inline, or a value that
+ * flows through a loop or a merge point, defeats it. MutableComplex
+ * doesn't depend on it. Its methods are small and final so they inline,
+ * and each arithmetic method has an overload taking the parts as doubles,
+ * so hot loops need no Complex operands at all.
+ *
+ * Not thread-safe; don't share instances, and don't use them as map keys
+ * (equals and hashCode are deliberately not overridden).
+ */
+public final class MutableComplex {
+    private double re;
+    private double im;
+
+    /** Creates zero. */
+    public MutableComplex() { }
+
+    public MutableComplex(double re, double im) {
+        this.re = re;
+        this.im = im;
+    }
+
+    public MutableComplex(Complex c) {
+        this(c.realPart(), c.imaginaryPart());
+    }
+
+    public double realPart() { return re; }
+    public double imaginaryPart() { return im; }
+
+    public MutableComplex set(double re, double im) {
+        this.re = re;
+        this.im = im;
+        return this;
+    }
+
+    public MutableComplex set(Complex c) {
+        return set(c.realPart(), c.imaginaryPart());
+    }
+
+    public MutableComplex plus(double re, double im) {
+        this.re += re;
+        this.im += im;
+        return this;
+    }
+
+    public MutableComplex plus(Complex c) {
+        return plus(c.realPart(), c.imaginaryPart());
+    }
+
+    public MutableComplex minus(double re, double im) {
+        this.re -= re;
+        this.im -= im;
+        return this;
+    }
+
+    public MutableComplex minus(Complex c) {
+        return minus(c.realPart(), c.imaginaryPart());
+    }
+
+    // Same formula as Complex.times, so results are identical
+    public MutableComplex times(double re, double im) {
+        double r = this.re;
+        this.re = r * re - this.im * im;
+        this.im = r * im + this.im * re;
+        return this;
+    }
+
+    public MutableComplex times(Complex c) {
+        return times(c.realPart(), c.imaginaryPart());
+    }
+
+    public MutableComplex times(MutableComplex c) {
+        return times(c.re, c.im);
+    }
+
+    // Same formula as Complex.dividedBy
+    public MutableComplex dividedBy(double re, double im) {
+        double tmp = re * re + im * im;
+        double r = this.re;
+        this.re = (r * re + this.im * im) / tmp;
+        this.im = (this.im * re - r * im) / tmp;
+        return this;
+    }
+
+    public MutableComplex dividedBy(Complex c) {
+        return dividedBy(c.realPart(), c.imaginaryPart());
+    }
+
+    /** Returns the current value as an immutable Complex. */
+    public Complex toComplex() {
+        return new Complex(re, im);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + re + " + " + im + "i)";
+    }
+}
@@ -0,0 +1,92 @@
+package com.effectivejava.item17.minimizemutability;
+
+import java.util.Random;
+
+/**
+ * Evaluates a complex polynomial by Horner's rule at many points, once with
+ * immutable Complex and once with a MutableComplex accumulator.
+ *
+ * In the immutable version the accumulator is carried around the loop, so
+ * escape analysis generally can't remove its two allocations per step.
+ *
+ * Usage: PolynomialBenchmark [degree] [points] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class PolynomialBenchmark {
+
+    public static void main(String[] args) {
+        int degree = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int points = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 17: Polynomial Evaluation Benchmark ===\n");
+        System.out.println("   degree " + degree + ", " + points + " points, best of "
+                + (rounds - warmup) + " rounds after " + warmup + " warm-up\n");
+
+        Random random = new Random(42);
+        Complex[] coefficients = new Complex[degree + 1];
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] = new Complex(random.nextGaussian(), random.nextGaussian());
+        }
+        Complex[] zs = new Complex[points];
+        for (int i = 0; i < points; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            zs[i] = new Complex(Math.cos(angle), Math.sin(angle));  // |z| = 1 keeps values bounded
+        }
+
+        long bestImmutable = Long.MAX_VALUE;
+        long bestMutable = Long.MAX_VALUE;
+        Complex immutableSum = null;
+        Complex mutableSum = null;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            immutableSum = sumImmutable(coefficients, zs);
+            long immutableNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            mutableSum = sumMutable(coefficients, zs);
+            long mutableNanos = System.nanoTime() - start;
+
+            if (round >= warmup) {
+                bestImmutable = Math.min(bestImmutable, immutableNanos);
+                bestMutable = Math.min(bestMutable, mutableNanos);
+            }
+        }
+
+        System.out.printf("   Complex:        %8.1f ms  (sum %s)%n", bestImmutable / 1e6, immutableSum);
+        System.out.printf("   MutableComplex: %8.1f ms  (sum %s)%n", bestMutable / 1e6, mutableSum);
+        System.out.printf("   Speedup:        %8.1fx%n", bestImmutable / (double) bestMutable);
+        System.out.println("   Same result:    " + immutableSum.equals(mutableSum));
+    }
+
+    // Sum over all points of p(z), with p evaluated by Horner's rule
+    private static Complex sumImmutable(Complex[] coefficients, Complex[] zs) {
+        Complex sum = Complex.ZERO;
+        for (Complex z : zs) {
+            Complex acc = Complex.ZERO;
+            for (Complex c : coefficients) {
+                acc = acc.times(z).plus(c);
+            }
+            sum = sum.plus(acc);
+        }
+        return sum;
+    }
+
+    private static Complex sumMutable(Complex[] coefficients, Complex[] zs) {
+        MutableComplex sum = new MutableComplex();
+        MutableComplex acc = new MutableComplex();
+        for (Complex z : zs) {
+            double zr = z.realPart();
+            double zi = z.imaginaryPart();
+            acc.set(0, 0);
+            for (Complex c : coefficients) {
+                acc.times(zr, zi).plus(c);
+            }
+            sum.plus(acc.realPart(), acc.imaginaryPart());
+        }
+        return sum.toComplex();
+    }
+}
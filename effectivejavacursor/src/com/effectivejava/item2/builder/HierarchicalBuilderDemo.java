@@ -1,5 +1,9 @@
 package com.effectivejava.item2.builder;
 
+import java.util.EnumSet;
+
+import com.effectivejava.item36.useenumset.EnumSetColumn;
+
 import static com.effectivejava.item2.builder.Pizza.Topping.*;
 
 /**
@@ -120,6 +124,20 @@ public class HierarchicalBuilderDemo {
         System.out.println("Result: " + mediumPizza);
         System.out.println();
         
+        // Many pizzas: store the toppings as packed bit lanes, not one EnumSet each
+        System.out.println("=== Storing Toppings for Many Pizzas ===");
+        EnumSetColumn<Pizza.Topping> orders = EnumSetColumn.of(Pizza.Topping.class);
+        Pizza.Topping[] menu = Pizza.Topping.values();
+        for (int i = 0; i < 1_000; i++) {
+            NyPizza.Builder builder = new NyPizza.Builder(NyPizza.Size.MEDIUM);
+            builder.addTopping(menu[i % menu.length]).addTopping(menu[i % 3]);
+            orders.add(builder.build().getToppings());
+        }
+        System.out.println(orders + ", " + orders.sizeInBytes() + " bytes");
+        System.out.println("Orders with HAM and ONION: " + orders.countContainingAll(EnumSet.of(HAM, ONION)));
+        System.out.println("Topping counts: " + orders.countsPerElement());
+        System.out.println();
+        
         System.out.println("=== Advantages of Hierarchical Builders ===");
         System.out.println("1. Type safety - no casts needed");
         System.out.println("2. Method chaining works in subclasses");
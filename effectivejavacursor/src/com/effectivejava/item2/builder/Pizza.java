@@ -1,5 +1,6 @@
 package com.effectivejava.item2.builder;
 
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Objects;
 import java.util.Set;
@@ -55,5 +56,12 @@ public abstract class Pizza {
     Pizza(Builder<?> builder) {
         toppings = builder.toppings.clone(); // See Item 50
     }
+    
+    /**
+     * Returns an unmodifiable view of the toppings.
+     */
+    public Set<Topping> getToppings() {
+        return Collections.unmodifiableSet(toppings);
+    }
 }
 
@@ -0,0 +1,67 @@
+package com.effectivejava.item3.singleton;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The database a DatabaseConnection talks to.
+ *
+ * The singleton is the single point of access; the backend is what it
+ * pools. Keeping the backend behind an interface lets us plug in a real
+ * driver or, for demos and tests, an in-process FakeBackend.
+ */
+public interface Backend {
+
+    /**
+     * Opens a new physical session. Expected to be expensive.
+     */
+    Session open() throws IOException;
+
+    /**
+     * One physical connection to the database. Not thread-safe: a session
+     * is used by one thread at a time.
+     */
+    interface Session extends AutoCloseable {
+
+        /**
+         * Parses and plans a query. Expected to be expensive, which is why
+         * pooled connections cache the result.
+         */
+        Statement prepare(String sql) throws IOException;
+
+        /**
+         * Returns true if this session can send several queries in one
+         * round trip with pipeline. The default is false.
+         */
+        default boolean supportsPipelining() {
+            return false;
+        }
+
+        /**
+         * Sends several queries in one pipelined round trip and returns
+         * their results in order. Backends that support pipelining
+         * override this and supportsPipelining; callers without it run
+         * the queries one by one, through their own statement caches.
+         *
+         * @throws UnsupportedOperationException if pipelining isn't supported
+         */
+        default List<String> pipeline(List<String> sqls) throws IOException {
+            throw new UnsupportedOperationException("Pipelining not supported");
+        }
+
+        /**
+         * Returns true if the session is still usable.
+         */
+        boolean ping();
+
+        @Override
+        void close();
+    }
+
+    /**
+     * A prepared query, bound to the session that prepared it.
+     */
+    interface Statement {
+        String execute() throws IOException;
+    }
+}
@@ -0,0 +1,174 @@
+package com.effectivejava.item3.singleton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batches small queries into pipelined round trips.
+ *
+ * Callers submit queries and get a CompletableFuture back. One worker per
+ * pooled connection collects queued queries into a batch until either
+ * - the batch reaches maxBatchSize, or
+ * - the oldest query in the batch has waited maxDelay,
+ * then sends the batch on its connection in one round trip and completes
+ * each query's future with its own result.
+ *
+ * Under light load a query waits at most maxDelay extra; under heavy load
+ * batches fill instantly and round trips drop by up to maxBatchSize times.
+ */
+public final class BatchingExecutor implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingQuery> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService workers;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private volatile boolean closed;
+
+    private static final class PendingQuery {
+        final String sql;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        final long enqueuedNanos = System.nanoTime();
+
+        PendingQuery(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    /**
+     * Starts one batching worker per connection in the pool.
+     *
+     * @throws IllegalArgumentException if maxBatchSize is not positive or maxDelay is negative
+     */
+    public BatchingExecutor(ConnectionPool pool, int maxBatchSize, long maxDelay, TimeUnit unit) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("Negative delay: " + maxDelay);
+        }
+        this.pool = pool;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.workers = Executors.newFixedThreadPool(pool.size(), r -> {
+            Thread t = new Thread(r, "query-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < pool.size(); i++) {
+            workers.execute(this::runWorker);
+        }
+    }
+
+    /**
+     * Queues a query for the next batch.
+     *
+     * @return a future completed with the query's result, or exceptionally
+     *         if its batch fails
+     * @throws IllegalStateException if the executor is closed
+     */
+    public CompletableFuture<String> submit(String sql) {
+        if (closed) {
+            throw new IllegalStateException("Executor is closed");
+        }
+        PendingQuery q = new PendingQuery(sql);
+        queue.add(q);
+        if (closed && queue.remove(q)) {
+            q.result.completeExceptionally(new IllegalStateException("Executor is closed"));
+        }
+        return q.result;
+    }
+
+    /** Returns the number of batches sent. */
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    /** Returns the number of queries sent. */
+    public long queryCount() {
+        return queries.sum();
+    }
+
+    /**
+     * Stops the workers. Queries not yet sent complete exceptionally; the
+     * pool itself is left open.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        workers.shutdownNow();
+        failPending();
+    }
+
+    private void runWorker() {
+        List<PendingQuery> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed) {
+                collectBatch(batch);
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // close() was called; fall through
+        }
+        IllegalStateException closedException = new IllegalStateException("Executor is closed");
+        batch.forEach(q -> q.result.completeExceptionally(closedException));
+        failPending();
+    }
+
+    // Blocks for the first query, then fills the batch until it is full or
+    // the first query's delay budget is spent
+    private void collectBatch(List<PendingQuery> batch) throws InterruptedException {
+        PendingQuery first = queue.take();
+        batch.add(first);
+        long deadline = first.enqueuedNanos + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                break;
+            }
+            PendingQuery next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void send(List<PendingQuery> batch) throws InterruptedException {
+        List<String> sqls = new ArrayList<>(batch.size());
+        for (PendingQuery q : batch) {
+            sqls.add(q.sql);
+        }
+        try (ConnectionPool.PooledConnection conn = pool.acquire(DatabaseConnection.ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            List<String> results = conn.executeBatch(sqls);
+            batches.increment();
+            queries.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            batch.forEach(q -> q.result.completeExceptionally(e));
+        }
+    }
+
+    private void failPending() {
+        IllegalStateException closedException = new IllegalStateException("Executor is closed");
+        PendingQuery q;
+        while ((q = queue.poll()) != null) {
+            q.result.completeExceptionally(closedException);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.effectivejava.item3.singleton;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size pool of backend sessions, used by the DatabaseConnection
+ * singleton so that callers no longer share one logical connection.
+ *
+ * - Fair acquisition: waiting threads are served in FIFO order
+ * - Acquisition timeout: a caller never waits longer than it asked to
+ * - Health checks: a connection idle longer than the check interval is
+ *   pinged before use, and replaced if the ping fails
+ * - Statement caching: each connection keeps an LRU cache of prepared
+ *   statements, so a hot query is prepared once per connection
+ * - Metrics: wait time and utilization
+ *
+ * LEASES: each acquire returns a new PooledConnection - a lease on one
+ * of the pool's physical connections (a Slot). Closing the lease returns
+ * the slot; after that the lease is dead: a second close does nothing and
+ * any other call throws IllegalStateException, even once the slot has
+ * been lent to someone else.
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    private final Backend backend;
+    private final int size;
+    private final int statementCacheSize;
+    private final long healthCheckNanos;
+    private final BlockingQueue<Slot> idle;
+    private final Slot closedSignal = new Slot(null);  // Queued by close() to wake waiters
+    private final long createdNanos = System.nanoTime();
+
+    // Metrics
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder busyNanos = new LongAdder();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final LongAdder replaced = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * Opens size sessions up front.
+     *
+     * @param healthCheckInterval idle time after which a connection is
+     *        pinged before use; 0 pings on every acquisition
+     * @throws IllegalArgumentException if size or statementCacheSize is not positive
+     * @throws IOException if a session can't be opened
+     */
+    public ConnectionPool(Backend backend, int size, int statementCacheSize,
+                          long healthCheckInterval, TimeUnit unit) throws IOException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive: " + size);
+        }
+        if (statementCacheSize <= 0) {
+            throw new IllegalArgumentException("Statement cache size must be positive: " + statementCacheSize);
+        }
+        this.backend = backend;
+        this.size = size;
+        this.statementCacheSize = statementCacheSize;
+        this.healthCheckNanos = unit.toNanos(healthCheckInterval);
+        this.idle = new ArrayBlockingQueue<>(size, true);  // true = fair
+        try {
+            for (int i = 0; i < size; i++) {
+                idle.add(new Slot(backend.open()));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires a connection, waiting at most the given time. Close the
+     * returned connection to give it back; each call returns a new one.
+     *
+     * @throws TimeoutException if no connection became available in time
+     * @throws IOException if an unhealthy connection could not be replaced
+     * @throws IllegalStateException if the pool is closed
+     */
+    public PooledConnection acquire(long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException, IOException {
+        checkOpen();
+        long start = System.nanoTime();
+        Slot slot = idle.poll(timeout, unit);
+        long waited = System.nanoTime() - start;
+        if (slot == closedSignal || (slot != null && closed)) {
+            giveBack(slot);  // Passes the signal on to the next waiter, or closes the session
+            throw new IllegalStateException("Pool is closed");
+        }
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+        if (slot == null) {
+            timeouts.increment();
+            throw new TimeoutException("No connection available within " + timeout + " " + unit);
+        }
+        acquisitions.increment();
+        try {
+            slot.checkHealth(start + waited);
+        } catch (IOException | RuntimeException e) {
+            giveBack(slot);  // Keep the slot; the next user retries the reconnect
+            throw e;
+        }
+        inUse.incrementAndGet();
+        return new PooledConnection(slot, start + waited);
+    }
+
+    /**
+     * Runs a single query on a pooled connection.
+     */
+    public String execute(String sql, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException, IOException {
+        try (PooledConnection conn = acquire(timeout, unit)) {
+            return conn.execute(sql);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a snapshot of the pool's metrics.
+     */
+    public Metrics metrics() {
+        return new Metrics(this);
+    }
+
+    /**
+     * Closes idle sessions and wakes threads waiting to acquire, which
+     * then fail with IllegalStateException. Connections in use are closed
+     * when released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Slot slot;
+        while ((slot = idle.poll()) != null) {
+            if (slot != closedSignal) {
+                slot.session.close();
+            }
+        }
+        idle.offer(closedSignal);  // Each woken waiter puts it back for the next
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Pool is closed");
+        }
+    }
+
+    private void release(Slot slot, long acquiredNanos) {
+        long now = System.nanoTime();
+        slot.lastUsedNanos = now;
+        busyNanos.add(now - acquiredNanos);
+        inUse.decrementAndGet();
+        giveBack(slot);
+    }
+
+    // Returns a slot to the idle queue, or closes its session if the pool is closed
+    private void giveBack(Slot slot) {
+        if (slot == closedSignal) {
+            idle.offer(slot);
+        } else if (closed || !idle.offer(slot)) {
+            slot.session.close();
+        } else if (closed && idle.remove(slot)) {
+            slot.session.close();  // Raced with close(), which may have drained the queue already
+        }
+    }
+
+    /**
+     * One physical connection: a session and its statement cache. Owned by
+     * the idle queue or by exactly one live lease.
+     */
+    private final class Slot {
+        private Backend.Session session;
+        private long lastUsedNanos = System.nanoTime();
+        private boolean broken;
+
+        // LRU cache of prepared statements for this session
+        private final Map<String, Backend.Statement> statements =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Backend.Statement> eldest) {
+                        return size() > statementCacheSize;
+                    }
+                };
+
+        Slot(Backend.Session session) {
+            this.session = session;
+        }
+
+        Backend.Statement prepare(String sql) throws IOException {
+            Backend.Statement stmt = statements.get(sql);
+            if (stmt == null) {
+                try {
+                    stmt = session.prepare(sql);
+                } catch (IOException e) {
+                    broken = true;
+                    throw e;
+                }
+                statements.put(sql, stmt);
+            }
+            return stmt;
+        }
+
+        // Pings if idle too long; replaces the session if it is unhealthy
+        void checkHealth(long now) throws IOException {
+            if (broken || now - lastUsedNanos >= healthCheckNanos) {
+                if (broken || !session.ping()) {
+                    broken = true;  // Stays set if the reopen fails, so the next user retries
+                    session.close();
+                    statements.clear();  // Statements belong to the old session
+                    session = backend.open();
+                    broken = false;
+                    replaced.increment();
+                }
+            }
+            lastUsedNanos = now;
+        }
+    }
+
+    /**
+     * A connection borrowed from the pool. Use it from one thread and close
+     * it (ideally with try-with-resources) to return it. Once closed it
+     * can't be used again: acquire returns a new one each time.
+     */
+    public final class PooledConnection implements AutoCloseable {
+        private Slot slot;  // null once returned
+        private final long acquiredNanos;
+
+        private PooledConnection(Slot slot, long acquiredNanos) {
+            this.slot = slot;
+            this.acquiredNanos = acquiredNanos;
+        }
+
+        /**
+         * Executes a query, preparing it only if this connection hasn't
+         * prepared it recently.
+         *
+         * @throws IllegalStateException if this connection has been closed
+         */
+        public String execute(String sql) throws IOException {
+            Slot s = slot();
+            Backend.Statement stmt = s.prepare(sql);
+            try {
+                return stmt.execute();
+            } catch (IOException e) {
+                s.broken = true;
+                throw e;
+            }
+        }
+
+        /**
+         * Executes several queries in one pipelined round trip if the
+         * backend supports it, or one by one through this connection's
+         * statement cache if it doesn't.
+         *
+         * @return the results, in the order of sqls
+         * @throws IOException if a query fails, or the backend returns the
+         *         wrong number of results
+         * @throws IllegalStateException if this connection has been closed
+         */
+        public List<String> executeBatch(List<String> sqls) throws IOException {
+            Slot s = slot();
+            if (!s.session.supportsPipelining()) {
+                List<String> results = new ArrayList<>(sqls.size());
+                for (String sql : sqls) {
+                    results.add(execute(sql));
+                }
+                return results;
+            }
+            try {
+                List<String> results = s.session.pipeline(sqls);
+                if (results.size() != sqls.size()) {
+                    throw new IOException("Pipeline returned " + results.size()
+                            + " results for " + sqls.size() + " queries");
+                }
+                return results;
+            } catch (IOException e) {
+                s.broken = true;  // The session's state is unknown
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the cached prepared statement for sql, preparing it on a
+         * cache miss. The statement must not be used after this connection
+         * is closed.
+         *
+         * @throws IllegalStateException if this connection has been closed
+         */
+        public Backend.Statement prepare(String sql) throws IOException {
+            return slot().prepare(sql);
+        }
+
+        /**
+         * Marks this connection as unusable; it will be reconnected before
+         * its next use.
+         *
+         * @throws IllegalStateException if this connection has been closed
+         */
+        public void markBroken() {
+            slot().broken = true;
+        }
+
+        private Slot slot() {
+            Slot s = slot;
+            if (s == null) {
+                throw new IllegalStateException("Connection has been returned to the pool");
+            }
+            return s;
+        }
+
+        /**
+         * Returns this connection to the pool. Idempotent: only the first
+         * call returns it, whoever uses the slot next.
+         */
+        @Override
+        public synchronized void close() {
+            Slot s = slot;
+            if (s != null) {
+                slot = null;
+                release(s, acquiredNanos);
+            }
+        }
+    }
+
+    /**
+     * Point-in-time view of pool metrics.
+     */
+    public static final class Metrics {
+        private final long acquisitions;
+        private final long timeouts;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final int inUse;
+        private final int size;
+        private final double utilization;
+        private final long replaced;
+
+        private Metrics(ConnectionPool pool) {
+            acquisitions = pool.acquisitions.sum();
+            timeouts = pool.timeouts.sum();
+            totalWaitNanos = pool.totalWaitNanos.sum();
+            maxWaitNanos = pool.maxWaitNanos.get();
+            inUse = pool.inUse.get();
+            size = pool.size;
+            long elapsed = Math.max(1, System.nanoTime() - pool.createdNanos);
+            utilization = Math.min(1.0, pool.busyNanos.sum() / ((double) elapsed * size));
+            replaced = pool.replaced.sum();
+        }
+
+        public long acquisitions() { return acquisitions; }
+        public long timeouts() { return timeouts; }
+        public int inUse() { return inUse; }
+        public long replacedConnections() { return replaced; }
+
+        /** Average time spent waiting for a connection, in nanoseconds. */
+        public double averageWaitNanos() {
+            long n = acquisitions + timeouts;
+            return n == 0 ? 0 : totalWaitNanos / (double) n;
+        }
+
+        /** Longest time any caller waited for a connection, in nanoseconds. */
+        public long maxWaitNanos() { return maxWaitNanos; }
+
+        /** Fraction of connections in use right now. */
+        public double currentUtilization() { return inUse / (double) size; }
+
+        /** Fraction of total connection-time spent in use since the pool was created. */
+        public double utilization() { return utilization; }
+
+        @Override
+        public String toString() {
+            return String.format("acquisitions=%d timeouts=%d avgWait=%.1fus maxWait=%.1fus "
+                    + "inUse=%d/%d utilization=%.1f%% replaced=%d",
+                    acquisitions, timeouts, averageWaitNanos() / 1e3, maxWaitNanos / 1e3,
+                    inUse, size, utilization * 100, replaced);
+        }
+    }
+}
@@ -1,45 +1,132 @@
 package com.effectivejava.item3.singleton;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Example of a singleton representing a system component that is intrinsically unique.
  * This demonstrates a practical use case for singletons.
- * 
+ *
  * Uses the enum approach (preferred) for maximum safety.
+ *
+ * The singleton is the single point of access, not a single connection:
+ * behind it sits a ConnectionPool, so concurrent callers don't serialize
+ * through one connection. Small queries can also be submitted
+ * asynchronously, to be sent in pipelined batches.
  */
 public enum DatabaseConnection {
     INSTANCE;
-    
-    private boolean connected = false;
-    
+
+    static final int DEFAULT_POOL_SIZE = 4;
+    static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    static final long HEALTH_CHECK_INTERVAL_SECONDS = 30;
+    static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+    static final int DEFAULT_MAX_BATCH_SIZE = 32;
+    static final long DEFAULT_MAX_BATCH_DELAY_MICROS = 500;
+
+    // null when disconnected; volatile so every thread sees connect/disconnect
+    private volatile ConnectionPool pool;
+    private volatile BatchingExecutor batcher;
+
+    /**
+     * Connects to an in-process FakeBackend with the default pool size.
+     */
     public void connect() {
-        if (!connected) {
+        connect(new FakeBackend(), DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Connects to the given backend with a pool of poolSize connections.
+     *
+     * @throws UncheckedIOException if the connections can't be opened
+     */
+    public synchronized void connect(Backend backend, int poolSize) {
+        if (pool == null) {
             System.out.println("Connecting to database...");
-            connected = true;
-            System.out.println("Database connected!");
+            try {
+                pool = new ConnectionPool(backend, poolSize, DEFAULT_STATEMENT_CACHE_SIZE,
+                        HEALTH_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            batcher = new BatchingExecutor(pool, DEFAULT_MAX_BATCH_SIZE,
+                    DEFAULT_MAX_BATCH_DELAY_MICROS, TimeUnit.MICROSECONDS);
+            System.out.println("Database connected! (" + poolSize + " pooled connections)");
         } else {
             System.out.println("Already connected to database.");
         }
     }
-    
-    public void disconnect() {
-        if (connected) {
+
+    public synchronized void disconnect() {
+        if (pool != null) {
             System.out.println("Disconnecting from database...");
-            connected = false;
+            batcher.close();
+            batcher = null;
+            pool.close();
+            pool = null;
             System.out.println("Database disconnected!");
         } else {
             System.out.println("Not connected to database.");
         }
     }
-    
+
     public boolean isConnected() {
-        return connected;
+        return pool != null;
     }
-    
-    public void executeQuery(String query) {
-        if (!connected) {
+
+    /**
+     * Executes a query on a pooled connection.
+     *
+     * @return the query result
+     * @throws IllegalStateException if not connected, or no connection
+     *         became available within the acquire timeout
+     * @throws UncheckedIOException if the query fails
+     */
+    public String executeQuery(String query) {
+        try {
+            return pool().execute(query, ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for a database connection", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a database connection", e);
+        }
+    }
+
+    /**
+     * Queues a query to be sent with others in one pipelined round trip.
+     * Worth it for many small queries, where round trips dominate.
+     *
+     * @return a future completed with the query result
+     * @throws IllegalStateException if not connected
+     */
+    public CompletableFuture<String> executeQueryAsync(String query) {
+        BatchingExecutor b = batcher;
+        if (b == null) {
             throw new IllegalStateException("Not connected to database");
         }
-        System.out.println("Executing query: " + query);
+        return b.submit(query);
+    }
+
+    /**
+     * Returns the pool's wait-time and utilization metrics.
+     *
+     * @throws IllegalStateException if not connected
+     */
+    public ConnectionPool.Metrics metrics() {
+        return pool().metrics();
     }
-}
 
+    private ConnectionPool pool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            throw new IllegalStateException("Not connected to database");
+        }
+        return p;
+    }
+}
@@ -0,0 +1,150 @@
+package com.effectivejava.item3.singleton;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for a database, for demos and tests.
+ *
+ * Simulates the costs that make pooling worthwhile: opening a session
+ * and preparing a statement both take time, and a query takes a round
+ * trip. A pipelined batch takes a single round trip. Counts opens,
+ * prepares and round trips so callers can see what was saved.
+ */
+public class FakeBackend implements Backend {
+
+    private final long openNanos;
+    private final long prepareNanos;
+    private final long roundTripNanos;
+
+    private final AtomicInteger sessionsOpened = new AtomicInteger();
+    private final AtomicInteger statementsPrepared = new AtomicInteger();
+    private final AtomicInteger queriesExecuted = new AtomicInteger();
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private volatile boolean failNextPing;
+
+    /**
+     * Creates a backend with no simulated latency.
+     */
+    public FakeBackend() {
+        this(0, 0, 0, TimeUnit.NANOSECONDS);
+    }
+
+    public FakeBackend(long openTime, long prepareTime, long roundTripTime, TimeUnit unit) {
+        this.openNanos = unit.toNanos(openTime);
+        this.prepareNanos = unit.toNanos(prepareTime);
+        this.roundTripNanos = unit.toNanos(roundTripTime);
+    }
+
+    @Override
+    public Session open() throws IOException {
+        pause(openNanos);
+        return new FakeSession(sessionsOpened.incrementAndGet());
+    }
+
+    /**
+     * Makes the next ping on any session fail, as if the server had
+     * dropped the connection.
+     */
+    public void failNextPing() {
+        failNextPing = true;
+    }
+
+    public int sessionsOpened() {
+        return sessionsOpened.get();
+    }
+
+    public int statementsPrepared() {
+        return statementsPrepared.get();
+    }
+
+    public int queriesExecuted() {
+        return queriesExecuted.get();
+    }
+
+    public int roundTrips() {
+        return roundTrips.get();
+    }
+
+    /**
+     * Simulates one round trip to the server.
+     */
+    void roundTrip() throws IOException {
+        roundTrips.incrementAndGet();
+        pause(roundTripNanos);
+    }
+
+    private static void pause(long nanos) throws IOException {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    private class FakeSession implements Session {
+        private final int id;
+        private boolean open = true;
+
+        FakeSession(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Statement prepare(String sql) throws IOException {
+            checkOpen();
+            pause(prepareNanos);
+            statementsPrepared.incrementAndGet();
+            return () -> {
+                checkOpen();
+                roundTrip();
+                queriesExecuted.incrementAndGet();
+                return "session " + id + ": " + sql;
+            };
+        }
+
+        @Override
+        public boolean supportsPipelining() {
+            return true;
+        }
+
+        @Override
+        public List<String> pipeline(List<String> sqls) throws IOException {
+            checkOpen();
+            roundTrip();  // One round trip for the whole batch
+            List<String> results = new ArrayList<>(sqls.size());
+            for (String sql : sqls) {
+                results.add("session " + id + ": " + sql);
+            }
+            queriesExecuted.addAndGet(sqls.size());
+            return results;
+        }
+
+        @Override
+        public boolean ping() {
+            if (failNextPing) {
+                failNextPing = false;
+                open = false;
+            }
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        private void checkOpen() throws IOException {
+            if (!open) {
+                throw new IOException("Session " + id + " is closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.effectivejava.item3.singleton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares one-query-per-round-trip execution with pipelined batches,
+ * against a FakeBackend that simulates network round-trip latency.
+ *
+ * Usage: QueryBatchingBenchmark [queries] [roundTripMicros]
+ */
+public class QueryBatchingBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int CLIENT_THREADS = 64;
+
+    public static void main(String[] args) throws Exception {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        long roundTripMicros = args.length > 1 ? Long.parseLong(args[1]) : 500;
+
+        System.out.println("=== Item 3: Query Batching Benchmark ===\n");
+        System.out.println("   " + queries + " queries, " + roundTripMicros + "us round trip, "
+                + POOL_SIZE + " connections, " + CLIENT_THREADS + " client threads");
+        System.out.println();
+
+        // One query per round trip
+        FakeBackend backend = new FakeBackend(0, 0, roundTripMicros, TimeUnit.MICROSECONDS);
+        try (ConnectionPool pool = new ConnectionPool(backend, POOL_SIZE, 64, 30, TimeUnit.SECONDS)) {
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+            long start = System.nanoTime();
+            List<Future<String>> results = new ArrayList<>(queries);
+            for (int i = 0; i < queries; i++) {
+                String sql = "SELECT * FROM users WHERE id = " + i;
+                results.add(clients.submit(() -> pool.execute(sql, 30, TimeUnit.SECONDS)));
+            }
+            for (Future<String> f : results) {
+                f.get();
+            }
+            report("One at a time", start, backend, queries);
+            clients.shutdown();
+        }
+
+        // Pipelined batches
+        backend = new FakeBackend(0, 0, roundTripMicros, TimeUnit.MICROSECONDS);
+        try (ConnectionPool pool = new ConnectionPool(backend, POOL_SIZE, 64, 30, TimeUnit.SECONDS);
+             BatchingExecutor batcher = new BatchingExecutor(pool, 32, 500, TimeUnit.MICROSECONDS)) {
+            long start = System.nanoTime();
+            List<CompletableFuture<String>> results = new ArrayList<>(queries);
+            for (int i = 0; i < queries; i++) {
+                results.add(batcher.submit("SELECT * FROM users WHERE id = " + i));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+            report("Batched", start, backend, queries);
+            System.out.printf("   Average batch size: %.1f%n",
+                    batcher.queryCount() / (double) batcher.batchCount());
+        }
+    }
+
+    private static void report(String label, long start, FakeBackend backend, int queries) {
+        double millis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("   %-14s %8.1f ms  %7.0f queries/s  %6d round trips%n",
+                label, millis, queries / (millis / 1e3), backend.roundTrips());
+    }
+}
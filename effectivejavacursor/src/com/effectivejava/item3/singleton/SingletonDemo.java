@@ -1,6 +1,7 @@
 package com.effectivejava.item3.singleton;
 
 import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Demonstration of the three singleton implementation approaches.
@@ -70,10 +71,16 @@ public class SingletonDemo {
         DatabaseConnection db2 = DatabaseConnection.INSTANCE;
         System.out.println("   Same instance? " + (db1 == db2));
         db1.connect();
-        db2.executeQuery("SELECT * FROM users");
+        System.out.println("   " + db2.executeQuery("SELECT * FROM users"));
+        System.out.println("   " + db2.executeQueryAsync("SELECT * FROM orders").join() + " (batched)");
+        System.out.println("   Pool metrics: " + db1.metrics());
         db1.disconnect();
         System.out.println();
         
+        System.out.println("6. CONNECTION POOL - LEASES AND HEALTH CHECKS:");
+        demonstrateConnectionPool();
+        System.out.println();
+        
         // Summary
         System.out.println("=== Summary ===");
         System.out.println("Use enum singleton when possible (preferred approach).");
@@ -82,6 +89,40 @@ public class SingletonDemo {
         System.out.println("(except enum singletons which handle it automatically).");
     }
     
+    /**
+     * Shows that a closed lease stays dead after its connection is lent
+     * again, and that a connection whose ping fails is replaced.
+     */
+    private static void demonstrateConnectionPool() {
+        FakeBackend backend = new FakeBackend();
+        // One connection, pinged on every acquisition
+        try (ConnectionPool pool = new ConnectionPool(backend, 1, 16, 0, TimeUnit.SECONDS)) {
+            ConnectionPool.PooledConnection first = pool.acquire(1, TimeUnit.SECONDS);
+            System.out.println("   First lease:  " + first.execute("SELECT 1"));
+            first.close();
+            
+            try (ConnectionPool.PooledConnection second = pool.acquire(1, TimeUnit.SECONDS)) {
+                first.close();  // Stale close: a no-op, second keeps its connection
+                System.out.println("   Second lease: " + second.execute("SELECT 2")
+                        + " (in use after stale close: " + pool.metrics().inUse() + ")");
+                try {
+                    first.execute("SELECT 3");
+                } catch (IllegalStateException e) {
+                    System.out.println("   Stale lease rejected: " + e.getMessage());
+                }
+            }
+            
+            backend.failNextPing();  // As if the server dropped the session
+            try (ConnectionPool.PooledConnection third = pool.acquire(1, TimeUnit.SECONDS)) {
+                System.out.println("   After failed ping: " + third.execute("SELECT 4")
+                        + " (replaced: " + pool.metrics().replacedConnections()
+                        + ", sessions opened: " + backend.sessionsOpened() + ")");
+            }
+        } catch (Exception e) {
+            System.out.println("   Pool demo failed: " + e);
+        }
+    }
+    
     /**
      * Demonstrates reflection attack and how different approaches handle it.
      */
@@ -0,0 +1,137 @@
+package com.effectivejava.item33.typesafecontainers;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe Favorites for containers that are read far more often
+ * than written - a per-request context, say, read thousands of times
+ * per request:
+ *
+ *   ConcurrentFavorites context = new ConcurrentFavorites();
+ *   context.putFavorite(User.class, user);
+ *   User u = context.getFavorite(User.class);
+ *
+ * DESIGN: instead of hashing the Class key into a map, every Class gets a
+ * small index the first time any ConcurrentFavorites stores a value for
+ * it, and each container keeps its values in an array at those indexes.
+ * The index is stored with the Class itself by a ClassValue, so looking it
+ * up hashes nothing. A get is then one array read. Reads never assign an
+ * index: a get or remove for a type never put finds it unassigned and
+ * returns null, so probing for optional types doesn't grow the index
+ * space or anyone's array. put checks the value's type with type.cast,
+ * so get needs no cast check of its own.
+ *
+ * CONCURRENCY: reads are lock-free: a get reads the current array through
+ * a volatile field. Writes are copy-on-write: a put copies the array,
+ * updates the copy and swaps it in with compare-and-set, retrying if
+ * another write got there first. Each write copies the whole array, so
+ * this suits containers written a few times and read many times.
+ *
+ * Indexes are shared by all containers and never reused, so an array is
+ * as long as the highest index it holds: a container holding a few
+ * types seen late in a program's life has a longer, mostly empty array.
+ *
+ * Like Favorites, a null value means "no favorite".
+ */
+public final class ConcurrentFavorites {
+
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    private static final int UNASSIGNED = -1;
+
+    // A type's index, or UNASSIGNED until a value of that type is first put
+    private static final class Index {
+        volatile int value = UNASSIGNED;
+    }
+
+    private static final ClassValue<Index> INDEXES = new ClassValue<>() {
+        @Override
+        protected Index computeValue(Class<?> type) {
+            return new Index();
+        }
+    };
+
+    private static final VarHandle VALUES;
+    static {
+        try {
+            VALUES = MethodHandles.lookup().findVarHandle(ConcurrentFavorites.class, "values", Object[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final Object[] EMPTY = {};
+
+    private volatile Object[] values = EMPTY;
+
+    /**
+     * Puts a favorite instance of type T, replacing any previous one.
+     * Type safety is ensured by the Class<T> key.
+     */
+    public <T> void putFavorite(Class<T> type, T instance) {
+        Object value = Objects.requireNonNull(type).cast(instance);
+        int index = value == null ? INDEXES.get(type).value : assignIndex(type);
+        if (index == UNASSIGNED) {
+            return;  // Removing a type that was never put
+        }
+        Object[] current;
+        Object[] updated;
+        do {
+            current = values;
+            if (index >= current.length && value == null) {
+                return;  // Nothing to remove
+            }
+            updated = Arrays.copyOf(current, Math.max(current.length, index + 1));
+            updated[index] = value;
+        } while (!VALUES.compareAndSet(this, current, updated));
+    }
+
+    /**
+     * Returns the favorite instance of type T, or null if there is none.
+     * Type safety is ensured by the Class<T> key.
+     */
+    public <T> T getFavorite(Class<T> type) {
+        int index = INDEXES.get(type).value;
+        Object[] current = values;
+        @SuppressWarnings("unchecked")  // putFavorite only stores Ts at T's index
+        T value = index >= 0 && index < current.length ? (T) current[index] : null;
+        return value;
+    }
+
+    /** Removes the favorite instance of type T, returning it, or null if there was none. */
+    public <T> T removeFavorite(Class<T> type) {
+        int index = INDEXES.get(type).value;
+        Object[] current;
+        Object[] updated;
+        do {
+            current = values;
+            if (index < 0 || index >= current.length || current[index] == null) {
+                return null;
+            }
+            updated = current.clone();
+            updated[index] = null;
+        } while (!VALUES.compareAndSet(this, current, updated));
+        @SuppressWarnings("unchecked")  // putFavorite only stores Ts at T's index
+        T removed = (T) current[index];
+        return removed;
+    }
+
+    private static int assignIndex(Class<?> type) {
+        Index index = INDEXES.get(type);
+        int value = index.value;
+        if (value == UNASSIGNED) {
+            synchronized (index) {
+                value = index.value;
+                if (value == UNASSIGNED) {
+                    value = NEXT_INDEX.getAndIncrement();
+                    index.value = value;
+                }
+            }
+        }
+        return value;
+    }
+}
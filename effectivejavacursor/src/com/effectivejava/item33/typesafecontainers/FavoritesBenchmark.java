@@ -0,0 +1,103 @@
+package com.effectivejava.item33.typesafecontainers;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares typed reads from three heterogeneous containers holding eight
+ * favorites:
+ * 1. Favorites           - HashMap lookup + type.cast (not thread-safe)
+ * 2. ConcurrentHashMap   - the thread-safe version of the same thing
+ * 3. ConcurrentFavorites - ClassValue index + array read
+ *
+ * Usage: FavoritesBenchmark [reads] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class FavoritesBenchmark {
+
+    private static final Class<?>[] TYPES = {
+        String.class, Integer.class, Long.class, Double.class,
+        StringBuilder.class, BigInteger.class, BigDecimal.class, Thread.class
+    };
+
+    public static void main(String[] args) {
+        int reads = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 33: Favorites Benchmark ===\n");
+        System.out.println("   " + reads + " reads of " + TYPES.length + " types, best of "
+                + (rounds - warmup) + " rounds after " + warmup + " warm-up\n");
+
+        Favorites favorites = new Favorites();
+        Map<Class<?>, Object> map = new ConcurrentHashMap<>();
+        ConcurrentFavorites concurrent = new ConcurrentFavorites();
+        Object[] values = {
+            "Java", 42, 42L, 4.2, new StringBuilder("sb"), BigInteger.TEN, BigDecimal.ONE, Thread.currentThread()
+        };
+        for (int i = 0; i < TYPES.length; i++) {
+            put(favorites, TYPES[i], values[i]);
+            map.put(TYPES[i], values[i]);
+            put(concurrent, TYPES[i], values[i]);
+        }
+
+        String[] names = { "Favorites", "ConcurrentHashMap", "ConcurrentFavorites" };
+        long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        long[] checks = new long[names.length];
+        for (int round = 0; round < rounds; round++) {
+            long[] nanos = new long[names.length];
+
+            long start = System.nanoTime();
+            long check = 0;
+            for (int i = 0; i < reads; i++) {
+                Class<?> type = TYPES[i & (TYPES.length - 1)];
+                check += favorites.getFavorite(type) == values[i & (TYPES.length - 1)] ? 1 : 0;
+            }
+            checks[0] = check;
+            nanos[0] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            check = 0;
+            for (int i = 0; i < reads; i++) {
+                Class<?> type = TYPES[i & (TYPES.length - 1)];
+                check += type.cast(map.get(type)) == values[i & (TYPES.length - 1)] ? 1 : 0;
+            }
+            checks[1] = check;
+            nanos[1] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            check = 0;
+            for (int i = 0; i < reads; i++) {
+                Class<?> type = TYPES[i & (TYPES.length - 1)];
+                check += concurrent.getFavorite(type) == values[i & (TYPES.length - 1)] ? 1 : 0;
+            }
+            checks[2] = check;
+            nanos[2] = System.nanoTime() - start;
+
+            if (round >= warmup) {
+                for (int c = 0; c < names.length; c++) {
+                    best[c] = Math.min(best[c], nanos[c]);
+                }
+            }
+        }
+
+        for (int c = 0; c < names.length; c++) {
+            System.out.printf("   %-20s %6.2f ns/read  %5.1fx%n", names[c],
+                    best[c] / (double) reads, best[0] / (double) best[c]);
+        }
+        System.out.println("   All reads correct: " + (checks[0] == reads && checks[1] == reads && checks[2] == reads));
+    }
+
+    // Captures the wildcard so the untyped test data can be stored
+    private static <T> void put(Favorites f, Class<T> type, Object value) {
+        f.putFavorite(type, type.cast(value));
+    }
+
+    private static <T> void put(ConcurrentFavorites f, Class<T> type, Object value) {
+        f.putFavorite(type, type.cast(value));
+    }
+}
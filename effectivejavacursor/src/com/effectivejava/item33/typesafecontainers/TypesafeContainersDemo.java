@@ -39,11 +39,23 @@ public class TypesafeContainersDemo {
         System.out.println("   This preserves type information");
         System.out.println();
         
+        System.out.println("4. CONCURRENT VERSION:");
+        ConcurrentFavorites context = new ConcurrentFavorites();
+        context.putFavorite(String.class, "request-42");
+        context.putFavorite(Integer.class, 7);
+        System.out.println("   String: " + context.getFavorite(String.class)
+                + ", Integer: " + context.getFavorite(Integer.class)
+                + ", Long: " + context.getFavorite(Long.class));
+        System.out.println("   Each Class gets an index via ClassValue; values live in an array");
+        System.out.println("   Lock-free reads, copy-on-write puts, no hashing per get");
+        System.out.println();
+        
         System.out.println("=== Key Takeaways ===");
         System.out.println("1. Use Class<T> as key for typesafe heterogeneous containers");
         System.out.println("2. This pattern allows type-safe storage of multiple types");
         System.out.println("3. Useful when you need a container that can hold different types");
         System.out.println("4. Limitations: Can't use non-reifiable types (e.g., List<String>)");
+        System.out.println("5. ClassValue can stand in for the Class-keyed map when reads dominate");
     }
 }
 
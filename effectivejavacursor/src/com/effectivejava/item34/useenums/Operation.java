@@ -7,15 +7,27 @@ package com.effectivejava.item34.useenums;
 public enum Operation {
     PLUS("+") {
         public double apply(double x, double y) { return x + y; }
+        void applyLoop(double[] x, double[] y, double[] out, int n) {
+            for (int i = 0; i < n; i++) out[i] = x[i] + y[i];
+        }
     },
     MINUS("-") {
         public double apply(double x, double y) { return x - y; }
+        void applyLoop(double[] x, double[] y, double[] out, int n) {
+            for (int i = 0; i < n; i++) out[i] = x[i] - y[i];
+        }
     },
     TIMES("*") {
         public double apply(double x, double y) { return x * y; }
+        void applyLoop(double[] x, double[] y, double[] out, int n) {
+            for (int i = 0; i < n; i++) out[i] = x[i] * y[i];
+        }
     },
     DIVIDE("/") {
         public double apply(double x, double y) { return x / y; }
+        void applyLoop(double[] x, double[] y, double[] out, int n) {
+            for (int i = 0; i < n; i++) out[i] = x[i] / y[i];
+        }
     };
     
     private final String symbol;
@@ -30,5 +42,27 @@ public enum Operation {
     }
     
     public abstract double apply(double x, double y);
+    
+    /**
+     * Bulk form of apply: out[i] = apply(x[i], y[i]) for i < out.length.
+     * 
+     * Calling apply per element from a loop that sees all four constants
+     * makes the call site megamorphic, so the JIT can't inline it. Here the
+     * constant is chosen once per batch, and each constant's applyLoop is a
+     * tight loop with the arithmetic written inline. applyLoop is abstract,
+     * like apply, so a new constant can't compile without its own loop.
+     * 
+     * @throws IllegalArgumentException if x or y is shorter than out
+     */
+    public final void applyAll(double[] x, double[] y, double[] out) {
+        int n = out.length;
+        if (x.length < n || y.length < n) {
+            throw new IllegalArgumentException("Input shorter than output: "
+                    + x.length + ", " + y.length + " < " + n);
+        }
+        applyLoop(x, y, out, n);
+    }
+    
+    // out[i] = apply(x[i], y[i]) for i < n; lengths already checked
+    abstract void applyLoop(double[] x, double[] y, double[] out, int n);
 }
-
@@ -42,5 +42,17 @@ public enum Planet {
     public double surfaceWeight(double mass) {
         return mass * surfaceGravity;  // F = ma
     }
+    
+    // Bulk form of surfaceWeight: out[i] = masses[i] * surfaceGravity
+    public void surfaceWeights(double[] masses, double[] out) {
+        if (masses.length < out.length) {
+            throw new IllegalArgumentException("Input shorter than output: "
+                    + masses.length + " < " + out.length);
+        }
+        double g = surfaceGravity;
+        for (int i = 0; i < out.length; i++) {
+            out[i] = masses[i] * g;
+        }
+    }
 }
 
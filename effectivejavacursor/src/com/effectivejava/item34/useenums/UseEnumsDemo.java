@@ -1,5 +1,7 @@
 package com.effectivejava.item34.useenums;
 
+import java.util.Arrays;
+
 /**
  * Demonstration of Item 34: Use enums instead of int constants.
  */
@@ -30,6 +32,12 @@ public class UseEnumsDemo {
         for (Operation op : Operation.values()) {
             System.out.printf("   %f %s %f = %f%n", x, op, y, op.apply(x, y));
         }
+        double[] xs = {1, 2, 3, 4};
+        double[] ys = {4, 3, 2, 1};
+        double[] out = new double[xs.length];
+        Operation.TIMES.applyAll(xs, ys, out);
+        System.out.println("   TIMES.applyAll(" + Arrays.toString(xs) + ", "
+                + Arrays.toString(ys) + ") = " + Arrays.toString(out));
         System.out.println();
         
         System.out.println("=== Key Takeaways ===");
@@ -0,0 +1,253 @@
+package com.effectivejava.item36.useenumset;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A column of enum sets - one set per row - packed into a long[].
+ *
+ * EnumSet already stores a set as a bit vector (Item 36), but each EnumSet
+ * is its own object, so a million rows of Style cost a million objects
+ * for what are 4-bit masks. EnumSetColumn keeps just the masks: each row
+ * gets a fixed-width lane of bits, the enum's size rounded up to a power
+ * of two, so 16 rows of Style or 8 rows of Pizza.Topping share one long.
+ *
+ *   EnumSetColumn<Style> styles = EnumSetColumn.of(Style.class);
+ *   styles.add(EnumSet.of(Style.BOLD, Style.ITALIC));
+ *   long bold = styles.countContainingAll(EnumSet.of(Style.BOLD));
+ *
+ * The API stays in terms of Set<E> and EnumMap: bit twiddling is an
+ * implementation detail, not something callers see (the point of Item 36).
+ *
+ * BULK QUERIES work a word (many rows) at a time. The query set is
+ * replicated into every lane of a long, and a few SWAR ("SIMD within a
+ * register") operations find every matching lane of a word at once; a
+ * popcount then counts them.
+ *
+ * Limited to enum types with at most 64 constants. Not thread-safe.
+ */
+public final class EnumSetColumn<E extends Enum<E>> {
+
+    private final Class<E> type;
+    private final E[] universe;
+    private final int laneBits;      // Bits per row: a power of two, 1 to 64
+    private final int lanesPerWord;
+    private final int laneShift;     // log2(lanesPerWord)
+    private final long laneMask;     // The low laneBits bits
+    private final long lowBits;      // Lowest bit of every lane
+    private final long highBits;     // Highest bit of every lane
+    private long[] words;
+    private int size;
+
+    private EnumSetColumn(Class<E> type, int capacity) {
+        this.type = type;
+        this.universe = type.getEnumConstants();
+        if (universe.length > Long.SIZE) {
+            throw new IllegalArgumentException(type.getSimpleName() + " has more than 64 constants");
+        }
+        int bits = 1;
+        while (bits < universe.length) {
+            bits <<= 1;
+        }
+        this.laneBits = bits;
+        this.lanesPerWord = Long.SIZE / bits;
+        this.laneShift = Integer.numberOfTrailingZeros(lanesPerWord);
+        this.laneMask = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+        this.lowBits = replicate(1L);
+        this.highBits = replicate(1L << (bits - 1));
+        this.words = new long[Math.max(1, (capacity + lanesPerWord - 1) / lanesPerWord)];
+    }
+
+    /** Returns an empty column for the given enum type. */
+    public static <E extends Enum<E>> EnumSetColumn<E> of(Class<E> type) {
+        return withCapacity(type, 64);
+    }
+
+    /**
+     * Returns an empty column with room for rows sets before it grows.
+     *
+     * @throws IllegalArgumentException if rows is negative, or type has
+     *         more than 64 constants
+     */
+    public static <E extends Enum<E>> EnumSetColumn<E> withCapacity(Class<E> type, int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Capacity must be non-negative: " + rows);
+        }
+        return new EnumSetColumn<>(type, rows);
+    }
+
+    /** Appends a row holding the given set. */
+    public void add(Set<E> set) {
+        if (size == (long) words.length * lanesPerWord) {
+            words = Arrays.copyOf(words, words.length + (words.length >> 1) + 1);
+        }
+        size++;
+        setMask(size - 1, mask(set));
+    }
+
+    /** Replaces the set in the given row. */
+    public void set(int row, Set<E> set) {
+        checkRow(row);
+        setMask(row, mask(set));
+    }
+
+    /** Returns a copy of the set in the given row. */
+    public EnumSet<E> get(int row) {
+        checkRow(row);
+        long m = maskAt(row);
+        EnumSet<E> result = EnumSet.noneOf(type);
+        for (long bits = m; bits != 0; bits &= bits - 1) {
+            result.add(universe[Long.numberOfTrailingZeros(bits)]);
+        }
+        return result;
+    }
+
+    public boolean contains(int row, E element) {
+        checkRow(row);
+        return (maskAt(row) & 1L << element.ordinal()) != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Returns the number of rows whose set contains every element of query. */
+    public long countContainingAll(Set<E> query) {
+        long q = mask(query);
+        if (q == 0) {
+            return size;  // Every set contains the empty set
+        }
+        long pattern = replicate(q);
+        long count = 0;
+        for (int w = 0, n = wordCount(); w < n; w++) {
+            count += Long.bitCount(zeroLanes((words[w] & pattern) ^ pattern));
+        }
+        return count;  // Unused lanes are empty, so they never match a non-empty query
+    }
+
+    /** Returns the number of rows whose set contains at least one element of query. */
+    public long countContainingAny(Set<E> query) {
+        long pattern = replicate(mask(query));
+        long count = 0;
+        for (int w = 0, n = wordCount(); w < n; w++) {
+            count += Long.bitCount(nonZeroLanes(words[w] & pattern));
+        }
+        return count;
+    }
+
+    /** Returns the rows whose set contains every element of query. */
+    public BitSet rowsContainingAll(Set<E> query) {
+        long q = mask(query);
+        BitSet rows = new BitSet(size);
+        if (q == 0) {
+            rows.set(0, size);
+            return rows;
+        }
+        long pattern = replicate(q);
+        for (int w = 0, n = wordCount(); w < n; w++) {
+            collect(rows, w, zeroLanes((words[w] & pattern) ^ pattern));
+        }
+        return rows;
+    }
+
+    /** Returns the rows whose set contains at least one element of query. */
+    public BitSet rowsContainingAny(Set<E> query) {
+        long pattern = replicate(mask(query));
+        BitSet rows = new BitSet(size);
+        for (int w = 0, n = wordCount(); w < n; w++) {
+            collect(rows, w, nonZeroLanes(words[w] & pattern));
+        }
+        return rows;
+    }
+
+    /** Returns, for each constant, the number of rows whose set contains it. */
+    public Map<E, Long> countsPerElement() {
+        long[] counts = new long[universe.length];
+        for (int w = 0, n = wordCount(); w < n; w++) {
+            long word = words[w];
+            if (word == 0) {
+                continue;
+            }
+            for (int c = 0; c < universe.length; c++) {
+                counts[c] += Long.bitCount(word & lowBits << c);
+            }
+        }
+        Map<E, Long> result = new EnumMap<>(type);
+        for (int c = 0; c < universe.length; c++) {
+            result.put(universe[c], counts[c]);
+        }
+        return result;
+    }
+
+    // Sets the high bit of each lane of x that is zero
+    private long zeroLanes(long x) {
+        long belowHigh = ~highBits;
+        return ~(((x & belowHigh) + belowHigh) | x | belowHigh);
+    }
+
+    // Sets the high bit of each lane of x that is not zero
+    private long nonZeroLanes(long x) {
+        long belowHigh = ~highBits;
+        return (((x & belowHigh) + belowHigh) | x) & highBits;
+    }
+
+    // Adds the rows of word w whose lane has its high bit set in lanes
+    private void collect(BitSet rows, int w, long lanes) {
+        int base = w << laneShift;
+        for (long bits = lanes; bits != 0; bits &= bits - 1) {
+            rows.set(base + Long.numberOfTrailingZeros(bits) / laneBits);
+        }
+    }
+
+    private long mask(Set<E> set) {
+        long m = 0;
+        for (E e : set) {
+            m |= 1L << e.ordinal();
+        }
+        return m;
+    }
+
+    // Copies a lane-sized value into every lane of a long
+    private long replicate(long value) {
+        long result = 0;
+        for (int lane = 0; lane < lanesPerWord; lane++) {
+            result |= value << (lane * laneBits);
+        }
+        return result;
+    }
+
+    private long maskAt(int row) {
+        return words[row >>> laneShift] >>> ((row & (lanesPerWord - 1)) * laneBits) & laneMask;
+    }
+
+    private void setMask(int row, long m) {
+        int shift = (row & (lanesPerWord - 1)) * laneBits;
+        int w = row >>> laneShift;
+        words[w] = words[w] & ~(laneMask << shift) | m << shift;
+    }
+
+    private int wordCount() {
+        return (size + lanesPerWord - 1) >>> laneShift;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+        }
+    }
+
+    /** Returns the approximate memory used by the packed sets, in bytes. */
+    public long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return "EnumSetColumn<" + type.getSimpleName() + ">(" + size + " rows, "
+                + laneBits + " bits per row)";
+    }
+}
@@ -0,0 +1,129 @@
+package com.effectivejava.item36.useenumset;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares a List<EnumSet<Style>> with an EnumSetColumn<Style> on memory
+ * and on three bulk queries: rows containing all of {BOLD, ITALIC}, rows
+ * containing any of {UNDERLINE, STRIKETHROUGH}, and counts per style.
+ *
+ * Usage: EnumSetColumnBenchmark [rows] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class EnumSetColumnBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 36: EnumSetColumn Benchmark ===\n");
+        System.out.println("   " + rows + " rows, best of " + (rounds - warmup) + " rounds after "
+                + warmup + " warm-up\n");
+
+        Style[] styles = Style.values();
+        Random random = new Random(42);
+        int[] masks = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            masks[i] = random.nextInt(1 << styles.length);
+        }
+
+        long before = usedMemory();
+        List<EnumSet<Style>> list = new ArrayList<>(rows);
+        for (int mask : masks) {
+            EnumSet<Style> set = EnumSet.noneOf(Style.class);
+            for (Style s : styles) {
+                if ((mask & 1 << s.ordinal()) != 0) set.add(s);
+            }
+            list.add(set);
+        }
+        long listBytes = usedMemory() - before;
+
+        EnumSetColumn<Style> column = EnumSetColumn.withCapacity(Style.class, rows);
+        for (EnumSet<Style> set : list) {
+            column.add(set);
+        }
+        System.out.printf("   Memory: List<EnumSet<Style>> ~%d MB, EnumSetColumn %d KB%n%n",
+                listBytes >> 20, column.sizeInBytes() >> 10);
+
+        Set<Style> all = EnumSet.of(Style.BOLD, Style.ITALIC);
+        Set<Style> any = EnumSet.of(Style.UNDERLINE, Style.STRIKETHROUGH);
+        long[] bestList = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        long[] bestColumn = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        long[] listResults = new long[3];
+        long[] columnResults = new long[3];
+        for (int round = 0; round < rounds; round++) {
+            long[] listNanos = new long[3];
+            long[] columnNanos = new long[3];
+
+            long start = System.nanoTime();
+            long count = 0;
+            for (EnumSet<Style> set : list) {
+                if (set.containsAll(all)) count++;
+            }
+            listResults[0] = count;
+            listNanos[0] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            count = 0;
+            for (EnumSet<Style> set : list) {
+                for (Style s : any) {
+                    if (set.contains(s)) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+            listResults[1] = count;
+            listNanos[1] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long[] perStyle = new long[styles.length];
+            for (EnumSet<Style> set : list) {
+                for (Style s : set) perStyle[s.ordinal()]++;
+            }
+            listResults[2] = perStyle[0];
+            listNanos[2] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            columnResults[0] = column.countContainingAll(all);
+            columnNanos[0] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            columnResults[1] = column.countContainingAny(any);
+            columnNanos[1] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Map<Style, Long> counts = column.countsPerElement();
+            columnResults[2] = counts.get(Style.BOLD);
+            columnNanos[2] = System.nanoTime() - start;
+
+            if (round >= warmup) {
+                for (int q = 0; q < 3; q++) {
+                    bestList[q] = Math.min(bestList[q], listNanos[q]);
+                    bestColumn[q] = Math.min(bestColumn[q], columnNanos[q]);
+                }
+            }
+        }
+
+        String[] names = { "containsAll {BOLD, ITALIC}", "containsAny {UNDERLINE, STRIKE}", "counts per style" };
+        for (int q = 0; q < 3; q++) {
+            System.out.printf("   %-32s list %7.2f ms  column %6.2f ms  %6.1fx  (same: %b)%n", names[q],
+                    bestList[q] / 1e6, bestColumn[q] / 1e6, bestList[q] / (double) bestColumn[q],
+                    listResults[q] == columnResults[q]);
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -29,6 +29,20 @@ public class UseEnumSetDemo {
         System.out.println("   styles: " + styles);
         System.out.println();
         
+        System.out.println("4. MANY SETS: EnumSetColumn");
+        EnumSetColumn<Style> runs = EnumSetColumn.of(Style.class);
+        runs.add(EnumSet.of(Style.BOLD, Style.ITALIC));
+        runs.add(EnumSet.of(Style.BOLD));
+        runs.add(EnumSet.noneOf(Style.class));
+        runs.add(EnumSet.of(Style.ITALIC, Style.UNDERLINE));
+        System.out.println("   " + runs);
+        System.out.println("   Row 0: " + runs.get(0));
+        System.out.println("   Rows with BOLD and ITALIC: " + runs.rowsContainingAll(EnumSet.of(Style.BOLD, Style.ITALIC)));
+        System.out.println("   Rows with ITALIC or UNDERLINE: " + runs.rowsContainingAny(EnumSet.of(Style.ITALIC, Style.UNDERLINE)));
+        System.out.println("   Counts per style: " + runs.countsPerElement());
+        System.out.println("   (One 4-bit lane per row instead of one EnumSet object per row)");
+        System.out.println();
+        
         System.out.println("=== Key Takeaways ===");
         System.out.println("1. Use EnumSet instead of bit fields");
         System.out.println("2. EnumSet is type-safe and efficient");
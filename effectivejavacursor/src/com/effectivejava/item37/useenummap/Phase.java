@@ -17,6 +17,9 @@ import static java.util.stream.Collectors.toMap;
  * - Type-safe
  * - More efficient than HashMap
  * - Handles null values correctly
+ * 
+ * Transition.from is the book's nested-EnumMap lookup. Transition.machine
+ * compiles the same transitions into a StateMachine table for hot paths.
  */
 public enum Phase {
     SOLID, LIQUID, GAS;
@@ -45,9 +48,23 @@ public enum Phase {
                 toMap(t -> t.to, t -> t, (x, y) -> y, () -> new EnumMap<>(Phase.class))
             ));
         
+        // The same transitions compiled into a flat from * N + to table
+        private static final StateMachine<Phase, Transition> MACHINE =
+            StateMachine.of(Phase.class, Transition.class, t -> t.from, t -> t.to);
+        
         public static Transition from(Phase from, Phase to) {
             return m.get(from).get(to);
         }
+        
+        /**
+         * Returns the state machine of all phase transitions. Hot paths
+         * should use it rather than from: machine().transition(from, to) is
+         * one array read where from is two map lookups, and count and
+         * replay step through long phase sequences in bulk.
+         */
+        public static StateMachine<Phase, Transition> machine() {
+            return MACHINE;
+        }
     }
 }
 
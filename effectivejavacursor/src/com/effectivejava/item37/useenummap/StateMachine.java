@@ -0,0 +1,293 @@
+package com.effectivejava.item37.useenummap;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A state machine compiled from an enum of states and an enum of
+ * transitions, for stepping through very long sequences quickly.
+ *
+ *   StateMachine<Phase, Phase.Transition> machine = Phase.Transition.machine();
+ *   machine.transition(Phase.SOLID, Phase.LIQUID);     // MELT
+ *   StateMachine.Counts counts = machine.count(phases);  // byte[] of Phase ordinals
+ *
+ * Item 37 warns against indexing arrays by ordinal in client code, and
+ * this class doesn't ask callers to: its API takes and returns enums.
+ * Inside, as EnumMap does, it uses ordinals - a transition lookup is one
+ * read of a flat table at from * N + to, instead of two EnumMap lookups.
+ *
+ * BULK: count() and replay() take phase or event sequences as byte[] or
+ * int[] of ordinals, the compact form a simulation stores billions of
+ * steps in, and tally every transition in one pass. Each step is a table
+ * read and a counter increment: staying in a state, and steps with no
+ * defined transition, are tallied in extra counter slots rather than
+ * handled by separate code paths.
+ *
+ * Immutable and thread-safe.
+ */
+public final class StateMachine<S extends Enum<S>, T extends Enum<T>> {
+
+    private final Class<S> stateType;
+    private final Class<T> transitionType;
+    private final S[] states;
+    private final T[] transitions;
+    private final int n;                // Number of states
+    private final T[] byPair;           // from * n + to -> transition, or null
+    private final int[] codeByPair;     // from * n + to -> transition ordinal, STAY or ILLEGAL
+    private final int[] fromOrdinal;    // transition ordinal -> from state ordinal
+    private final int[] toOrdinal;      // transition ordinal -> to state ordinal
+    private final int stay;             // Counter slot for "no change"
+    private final int illegal;          // Counter slot for undefined transitions
+
+    private StateMachine(Class<S> stateType, Class<T> transitionType,
+                         Function<? super T, S> from, Function<? super T, S> to) {
+        this.stateType = stateType;
+        this.transitionType = transitionType;
+        this.states = stateType.getEnumConstants();
+        this.transitions = transitionType.getEnumConstants();
+        this.n = states.length;
+        this.stay = transitions.length;
+        this.illegal = transitions.length + 1;
+        @SuppressWarnings("unchecked")  // Array of the transition type, all null
+        T[] table = (T[]) Array.newInstance(transitionType, n * n);
+        this.byPair = table;
+        this.codeByPair = new int[n * n];
+        Arrays.fill(codeByPair, illegal);
+        for (int s = 0; s < n; s++) {
+            codeByPair[s * n + s] = stay;
+        }
+        this.fromOrdinal = new int[transitions.length];
+        this.toOrdinal = new int[transitions.length];
+        for (T t : transitions) {
+            int f = Objects.requireNonNull(from.apply(t), "from").ordinal();
+            int d = Objects.requireNonNull(to.apply(t), "to").ordinal();
+            if (f == d) {
+                throw new IllegalArgumentException(t + " starts and ends in " + states[f]);
+            }
+            if (byPair[f * n + d] != null) {
+                throw new IllegalArgumentException(t + " and " + byPair[f * n + d]
+                        + " both go from " + states[f] + " to " + states[d]);
+            }
+            byPair[f * n + d] = t;
+            codeByPair[f * n + d] = t.ordinal();
+            fromOrdinal[t.ordinal()] = f;
+            toOrdinal[t.ordinal()] = d;
+        }
+    }
+
+    /**
+     * Compiles a state machine from a transition enum.
+     *
+     * @param from returns the state a transition starts in
+     * @param to returns the state a transition ends in
+     * @throws IllegalArgumentException if two transitions connect the same
+     *         pair of states, or a transition starts and ends in the same state
+     */
+    public static <S extends Enum<S>, T extends Enum<T>> StateMachine<S, T> of(
+            Class<S> stateType, Class<T> transitionType,
+            Function<? super T, S> from, Function<? super T, S> to) {
+        return new StateMachine<>(stateType, transitionType, from, to);
+    }
+
+    /** Returns the transition from one state to another, or null if there is none. */
+    public T transition(S from, S to) {
+        return byPair[from.ordinal() * n + to.ordinal()];
+    }
+
+    public S from(T transition) {
+        return states[fromOrdinal[transition.ordinal()]];
+    }
+
+    public S to(T transition) {
+        return states[toOrdinal[transition.ordinal()]];
+    }
+
+    /**
+     * Tallies the transitions in a sequence of states, given as ordinals:
+     * how often each transition occurs between consecutive elements, how
+     * often the state stays the same, and how often it changes with no
+     * transition defined.
+     *
+     * @throws IllegalArgumentException if an element is not a state ordinal
+     */
+    public Counts count(byte[] states) {
+        long[] counters = new long[illegal + 1];
+        long firstIllegal = -1;
+        int len = states.length;
+        if (len > 0) {
+            int previous = checkState(states[0] & 0xFF, 0);
+            for (int i = 1; i < len; i++) {
+                int current = checkState(states[i] & 0xFF, i);
+                int code = codeByPair[previous * n + current];
+                counters[code]++;
+                if (code == illegal && firstIllegal < 0) {
+                    firstIllegal = i;
+                }
+                previous = current;
+            }
+        }
+        return new Counts(counters, firstIllegal, len == 0 ? null : this.states[states[len - 1] & 0xFF]);
+    }
+
+    /** int[] form of count(byte[]), for state enums with more than 256 constants. */
+    public Counts count(int[] states) {
+        long[] counters = new long[illegal + 1];
+        long firstIllegal = -1;
+        int len = states.length;
+        if (len > 0) {
+            int previous = checkState(states[0], 0);
+            for (int i = 1; i < len; i++) {
+                int current = checkState(states[i], i);
+                int code = codeByPair[previous * n + current];
+                counters[code]++;
+                if (code == illegal && firstIllegal < 0) {
+                    firstIllegal = i;
+                }
+                previous = current;
+            }
+        }
+        return new Counts(counters, firstIllegal, len == 0 ? null : this.states[states[len - 1]]);
+    }
+
+    /**
+     * Applies a stream of events, given as transition ordinals, starting
+     * in state start. An event whose transition doesn't start in the
+     * current state is illegal: it is tallied and skipped, leaving the
+     * state unchanged.
+     *
+     * @throws IllegalArgumentException if an element is not a transition ordinal
+     */
+    public Counts replay(S start, byte[] events) {
+        long[] counters = new long[illegal + 1];
+        long firstIllegal = -1;
+        int state = start.ordinal();
+        for (int i = 0; i < events.length; i++) {
+            int e = checkTransition(events[i] & 0xFF, i);
+            boolean legal = fromOrdinal[e] == state;
+            counters[legal ? e : illegal]++;
+            state = legal ? toOrdinal[e] : state;
+            if (!legal && firstIllegal < 0) {
+                firstIllegal = i;
+            }
+        }
+        return new Counts(counters, firstIllegal, states[state]);
+    }
+
+    /** int[] form of replay(S, byte[]). */
+    public Counts replay(S start, int[] events) {
+        long[] counters = new long[illegal + 1];
+        long firstIllegal = -1;
+        int state = start.ordinal();
+        for (int i = 0; i < events.length; i++) {
+            int e = checkTransition(events[i], i);
+            boolean legal = fromOrdinal[e] == state;
+            counters[legal ? e : illegal]++;
+            state = legal ? toOrdinal[e] : state;
+            if (!legal && firstIllegal < 0) {
+                firstIllegal = i;
+            }
+        }
+        return new Counts(counters, firstIllegal, states[state]);
+    }
+
+    private int checkState(int ordinal, int index) {
+        if (ordinal >= n || ordinal < 0) {
+            throw new IllegalArgumentException("Not a " + stateType.getSimpleName()
+                    + " ordinal at index " + index + ": " + ordinal);
+        }
+        return ordinal;
+    }
+
+    private int checkTransition(int ordinal, int index) {
+        if (ordinal >= transitions.length || ordinal < 0) {
+            throw new IllegalArgumentException("Not a " + transitionType.getSimpleName()
+                    + " ordinal at index " + index + ": " + ordinal);
+        }
+        return ordinal;
+    }
+
+    /**
+     * The result of count or replay. A long sequence can be processed in
+     * chunks (in parallel, say) and the results combined with plus; for
+     * count, consecutive chunks must share their boundary element, so
+     * that the step between them is counted once.
+     */
+    public final class Counts {
+        private final long[] counters;
+        private final long firstIllegalIndex;
+        private final S endState;
+
+        private Counts(long[] counters, long firstIllegalIndex, S endState) {
+            this.counters = counters;
+            this.firstIllegalIndex = firstIllegalIndex;
+            this.endState = endState;
+        }
+
+        /** Returns how many times the transition occurred. */
+        public long count(T transition) {
+            return counters[transition.ordinal()];
+        }
+
+        /** Returns the count of every transition. */
+        public Map<T, Long> asMap() {
+            Map<T, Long> result = new EnumMap<>(transitionType);
+            for (T t : transitions) {
+                result.put(t, counters[t.ordinal()]);
+            }
+            return Collections.unmodifiableMap(result);
+        }
+
+        /** Returns how many steps stayed in the same state (count only). */
+        public long stays() {
+            return counters[stay];
+        }
+
+        /** Returns how many steps had no defined transition. */
+        public long illegal() {
+            return counters[illegal];
+        }
+
+        /** Returns the index of the first illegal step, or -1 if there was none. */
+        public long firstIllegalIndex() {
+            return firstIllegalIndex;
+        }
+
+        /** Returns the state after the last step, or null for an empty sequence. */
+        public S endState() {
+            return endState;
+        }
+
+        /**
+         * Combines these counts with those of the chunk that follows them.
+         * later's first illegal index is relative to its chunk, so offset -
+         * where that chunk starts in the whole sequence - is added to it.
+         */
+        public Counts plus(Counts later, long offset) {
+            long[] sum = counters.clone();
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += later.counters[i];
+            }
+            long first = firstIllegalIndex >= 0 ? firstIllegalIndex
+                    : later.firstIllegalIndex >= 0 ? later.firstIllegalIndex + offset : -1;
+            return new Counts(sum, first, later.endState != null ? later.endState : endState);
+        }
+
+        @Override
+        public String toString() {
+            return asMap() + ", stays=" + stays() + ", illegal=" + illegal()
+                    + (firstIllegalIndex >= 0 ? " (first at " + firstIllegalIndex + ")" : "")
+                    + ", end=" + endState;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StateMachine<" + stateType.getSimpleName() + ", " + transitionType.getSimpleName()
+                + ">(" + n + " states, " + transitions.length + " transitions)";
+    }
+}
@@ -0,0 +1,95 @@
+package com.effectivejava.item37.useenummap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares tallying the transitions in a long phase sequence with nested
+ * EnumMaps (Item 37's Map<Phase, Map<Phase, Transition>>, plus an
+ * EnumMap of counters) against StateMachine.count over a byte[].
+ *
+ * Usage: StateMachineBenchmark [steps] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class StateMachineBenchmark {
+
+    public static void main(String[] args) {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 100_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 37: State Machine Benchmark ===\n");
+        System.out.println("   " + steps + " phases, best of " + (rounds - warmup) + " rounds after "
+                + warmup + " warm-up\n");
+
+        // A random walk: stay put half the time, otherwise take a random transition
+        Phase[] phases = Phase.values();
+        Random random = new Random(42);
+        byte[] sequence = new byte[steps];
+        int state = 0;
+        for (int i = 0; i < steps; i++) {
+            if (random.nextBoolean()) {
+                state = (state + 1 + random.nextInt(phases.length - 1)) % phases.length;
+            }
+            sequence[i] = (byte) state;
+        }
+
+        Map<Phase, Map<Phase, Phase.Transition>> nested = new EnumMap<>(Phase.class);
+        for (Phase from : phases) {
+            nested.put(from, new EnumMap<>(Phase.class));
+            for (Phase to : phases) {
+                Phase.Transition t = Phase.Transition.from(from, to);
+                if (t != null) {
+                    nested.get(from).put(to, t);
+                }
+            }
+        }
+        StateMachine<Phase, Phase.Transition> machine = Phase.Transition.machine();
+
+        long bestMaps = Long.MAX_VALUE;
+        long bestTable = Long.MAX_VALUE;
+        Map<Phase.Transition, Long> mapCounts = null;
+        StateMachine<Phase, Phase.Transition>.Counts tableCounts = null;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            mapCounts = countWithMaps(nested, phases, sequence);
+            long maps = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            tableCounts = machine.count(sequence);
+            long table = System.nanoTime() - start;
+
+            if (round >= warmup) {
+                bestMaps = Math.min(bestMaps, maps);
+                bestTable = Math.min(bestTable, table);
+            }
+        }
+
+        System.out.printf("   Nested EnumMaps: %8.1f ms  (%.2f ns/step)%n", bestMaps / 1e6, bestMaps / (double) steps);
+        System.out.printf("   StateMachine:    %8.1f ms  (%.2f ns/step)%n", bestTable / 1e6, bestTable / (double) steps);
+        System.out.printf("   Speedup:         %8.1fx%n", bestMaps / (double) bestTable);
+        System.out.println("   Same counts:     " + mapCounts.equals(tableCounts.asMap()));
+        System.out.println("   " + tableCounts);
+    }
+
+    private static Map<Phase.Transition, Long> countWithMaps(Map<Phase, Map<Phase, Phase.Transition>> nested,
+                                                             Phase[] phases, byte[] sequence) {
+        Map<Phase.Transition, Long> counts = new EnumMap<>(Phase.Transition.class);
+        for (Phase.Transition t : Phase.Transition.values()) {
+            counts.put(t, 0L);
+        }
+        Phase previous = phases[sequence[0]];
+        for (int i = 1; i < sequence.length; i++) {
+            Phase current = phases[sequence[i]];
+            Phase.Transition t = nested.get(previous).get(current);
+            if (t != null) {
+                counts.merge(t, 1L, Long::sum);
+            }
+            previous = current;
+        }
+        return counts;
+    }
+}
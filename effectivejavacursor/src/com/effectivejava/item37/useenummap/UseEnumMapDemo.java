@@ -22,7 +22,26 @@ public class UseEnumMapDemo {
         
         System.out.println("3. EXAMPLE:");
         Phase.Transition transition = Phase.Transition.from(Phase.SOLID, Phase.LIQUID);
-        System.out.println("   Transition from SOLID to LIQUID: " + transition);
+        System.out.println("   Transition from SOLID to LIQUID: " + transition
+                + " (nested EnumMap lookup)");
+        System.out.println();
+        
+        System.out.println("4. HOT PATHS AND BULK: StateMachine");
+        StateMachine<Phase, Phase.Transition> machine = Phase.Transition.machine();
+        System.out.println("   machine().transition(GAS, SOLID): " + machine.transition(Phase.GAS, Phase.SOLID)
+                + " (one array read)");
+        byte[] phases = {
+            (byte) Phase.SOLID.ordinal(), (byte) Phase.LIQUID.ordinal(), (byte) Phase.GAS.ordinal(),
+            (byte) Phase.GAS.ordinal(), (byte) Phase.SOLID.ordinal(), (byte) Phase.LIQUID.ordinal()
+        };
+        System.out.println("   " + machine);
+        System.out.println("   Phases SOLID LIQUID GAS GAS SOLID LIQUID: " + machine.count(phases));
+        byte[] events = {
+            (byte) Phase.Transition.MELT.ordinal(), (byte) Phase.Transition.MELT.ordinal(),
+            (byte) Phase.Transition.BOIL.ordinal()
+        };
+        System.out.println("   Events MELT MELT BOIL from SOLID: " + machine.replay(Phase.SOLID, events));
+        System.out.println("   (Ordinals appear only as compact storage; the API is all enums)");
         System.out.println();
         
         System.out.println("=== Key Takeaways ===");
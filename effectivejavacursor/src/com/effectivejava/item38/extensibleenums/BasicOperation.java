@@ -0,0 +1,46 @@
+package com.effectivejava.item38.extensibleenums;
+
+/**
+ * Basic operations enum implementing the interface.
+ */
+enum BasicOperation implements Operation {
+    PLUS("+") {
+        public double apply(double x, double y) { return x + y; }
+        public void applyLoop(double[] a, int aFrom, double[] b, int bFrom,
+                              double[] out, int outFrom, int n) {
+            for (int i = 0; i < n; i++) out[outFrom + i] = a[aFrom + i] + b[bFrom + i];
+        }
+    },
+    MINUS("-") {
+        public double apply(double x, double y) { return x - y; }
+        public void applyLoop(double[] a, int aFrom, double[] b, int bFrom,
+                              double[] out, int outFrom, int n) {
+            for (int i = 0; i < n; i++) out[outFrom + i] = a[aFrom + i] - b[bFrom + i];
+        }
+    },
+    TIMES("*") {
+        public double apply(double x, double y) { return x * y; }
+        public void applyLoop(double[] a, int aFrom, double[] b, int bFrom,
+                              double[] out, int outFrom, int n) {
+            for (int i = 0; i < n; i++) out[outFrom + i] = a[aFrom + i] * b[bFrom + i];
+        }
+    },
+    DIVIDE("/") {
+        public double apply(double x, double y) { return x / y; }
+        public void applyLoop(double[] a, int aFrom, double[] b, int bFrom,
+                              double[] out, int outFrom, int n) {
+            for (int i = 0; i < n; i++) out[outFrom + i] = a[aFrom + i] / b[bFrom + i];
+        }
+    };
+    
+    private final String symbol;
+    
+    BasicOperation(String symbol) {
+        this.symbol = symbol;
+    }
+    
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
@@ -0,0 +1,237 @@
+package com.effectivejava.item38.extensibleenums;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates Operations and Expressions over whole columns of doubles.
+ *
+ * Calling op.apply once per element is a virtual call per element, and in
+ * a loop that sees several operations the call site is megamorphic, so the
+ * JIT can't inline the arithmetic. BatchEvaluator instead makes one call
+ * per batch, to the operation's applyLoop: BasicOperation and
+ * ExtendedOperation override it with a tight loop that has the arithmetic
+ * inline, and so can an operation defined anywhere else (Item 38 lets
+ * anyone add them). One that doesn't still works, through the default
+ * loop that calls apply per element.
+ *
+ * EXPRESSIONS: compile() turns an Expression into a Kernel that makes a
+ * single pass over its input columns, in blocks of BLOCK_SIZE rows. Within
+ * a block, each operation of the tree runs as one tight loop, and the
+ * intermediate results stay in small, cache-resident scratch blocks - so
+ * a tree of any size costs no per-element calls and no full-length
+ * temporary arrays. Constant subtrees are folded at compile time.
+ */
+public final class BatchEvaluator {
+
+    /** Rows per block: scratch blocks of 8 KB each stay in the L1 cache. */
+    static final int BLOCK_SIZE = 1024;
+
+    private BatchEvaluator() { }
+
+    /**
+     * Computes out[i] = op.apply(x[i], y[i]) for i < out.length.
+     *
+     * @throws IllegalArgumentException if x or y is shorter than out
+     */
+    public static void apply(Operation op, double[] x, double[] y, double[] out) {
+        int n = out.length;
+        if (x.length < n || y.length < n) {
+            throw new IllegalArgumentException("Input shorter than output: "
+                    + x.length + ", " + y.length + " < " + n);
+        }
+        op.applyLoop(x, 0, y, 0, out, 0, n);
+    }
+
+    /**
+     * Compiles an expression into a Kernel that evaluates it over columns.
+     */
+    public static Kernel compile(Expression expression) {
+        Compiler compiler = new Compiler();
+        Expression folded = expression.foldConstants();
+        int root = compiler.emit(folded, 0, true);
+        return new Kernel(folded, compiler, root);
+    }
+
+    /*
+     * An operand is encoded in an int: the low two bits are its kind, the
+     * rest its index - a column, a scratch register, or a constant.
+     */
+    private static final int COLUMN = 0;
+    private static final int REGISTER = 1;
+    private static final int CONSTANT = 2;
+    private static final int OUTPUT = 3;
+
+    private static int operand(int kind, int index) {
+        return index << 2 | kind;
+    }
+
+    private static int kind(int operand) {
+        return operand & 3;
+    }
+
+    private static int index(int operand) {
+        return operand >>> 2;
+    }
+
+    // Flattens a tree into a list of instructions, post-order. The result
+    // of a node at stack depth d goes to register d, so the number of
+    // registers is the depth of the tree, not its size.
+    private static final class Compiler {
+        final List<Operation> ops = new ArrayList<>();
+        final List<int[]> args = new ArrayList<>();  // {destination, left, right}
+        final List<Double> constants = new ArrayList<>();
+        int registers;
+        int variables;
+
+        int emit(Expression e, int depth, boolean root) {
+            if (e instanceof Expression.Constant) {
+                constants.add(((Expression.Constant) e).value);
+                return operand(CONSTANT, constants.size() - 1);
+            }
+            if (e instanceof Expression.Variable) {
+                int index = ((Expression.Variable) e).index;
+                variables = Math.max(variables, index + 1);
+                return operand(COLUMN, index);
+            }
+            Expression.Binary b = (Expression.Binary) e;
+            int left = emit(b.left, depth, false);
+            int right = emit(b.right, kind(left) == REGISTER ? depth + 1 : depth, false);
+            int destination = root ? operand(OUTPUT, 0) : operand(REGISTER, depth);
+            if (!root) {
+                registers = Math.max(registers, depth + 1);
+            }
+            ops.add(b.op);
+            args.add(new int[] { destination, left, right });
+            return destination;
+        }
+    }
+
+    /**
+     * A compiled expression. Immutable and safe for concurrent use; each
+     * evaluate call allocates its own few scratch blocks.
+     */
+    public static final class Kernel {
+        private final Expression expression;
+        private final Operation[] ops;
+        private final int[][] args;
+        private final double[] constants;
+        private final int registers;
+        private final int variables;
+        private final int root;  // Operand holding the result
+
+        private Kernel(Expression expression, Compiler compiler, int root) {
+            this.expression = expression;
+            this.ops = compiler.ops.toArray(new Operation[0]);
+            this.args = compiler.args.toArray(new int[0][]);
+            this.constants = new double[compiler.constants.size()];
+            for (int i = 0; i < constants.length; i++) {
+                constants[i] = compiler.constants.get(i);
+            }
+            this.registers = compiler.registers;
+            this.variables = compiler.variables;
+            this.root = root;
+        }
+
+        /** Returns the number of input columns evaluate expects. */
+        public int variableCount() {
+            return variables;
+        }
+
+        /**
+         * Computes out[i] = expression(columns[0][i], columns[1][i], ...)
+         * for i < out.length.
+         *
+         * @throws IllegalArgumentException if there are fewer columns than
+         *         variableCount(), or a column is shorter than out
+         */
+        public void evaluate(double[][] columns, double[] out) {
+            int n = out.length;
+            if (columns.length < variables) {
+                throw new IllegalArgumentException("Expected " + variables + " columns, got " + columns.length);
+            }
+            for (int c = 0; c < variables; c++) {
+                if (columns[c].length < n) {
+                    throw new IllegalArgumentException("Column " + c + " shorter than output: "
+                            + columns[c].length + " < " + n);
+                }
+            }
+
+            switch (kind(root)) {
+                case COLUMN:
+                    System.arraycopy(columns[index(root)], 0, out, 0, n);
+                    return;
+                case CONSTANT:
+                    Arrays.fill(out, constants[index(root)]);
+                    return;
+                default:
+                    break;
+            }
+
+            double[][] scratch = new double[registers][BLOCK_SIZE];
+            double[][] constantBlocks = new double[constants.length][BLOCK_SIZE];
+            for (int k = 0; k < constants.length; k++) {
+                Arrays.fill(constantBlocks[k], constants[k]);
+            }
+            for (int from = 0; from < n; from += BLOCK_SIZE) {
+                int length = Math.min(BLOCK_SIZE, n - from);
+                for (int j = 0; j < ops.length; j++) {
+                    int[] a = args[j];
+                    ops[j].applyLoop(
+                            array(a[1], columns, scratch, constantBlocks, out), offset(a[1], from),
+                            array(a[2], columns, scratch, constantBlocks, out), offset(a[2], from),
+                            array(a[0], columns, scratch, constantBlocks, out), offset(a[0], from),
+                            length);
+                }
+            }
+        }
+
+        /** Returns expression(columns[0][i], ...) for each of the first rows rows. */
+        public double[] evaluate(double[][] columns, int rows) {
+            double[] out = new double[rows];
+            evaluate(columns, out);
+            return out;
+        }
+
+        private static double[] array(int operand, double[][] columns, double[][] scratch,
+                                      double[][] constantBlocks, double[] out) {
+            switch (kind(operand)) {
+                case COLUMN: return columns[index(operand)];
+                case REGISTER: return scratch[index(operand)];
+                case CONSTANT: return constantBlocks[index(operand)];
+                default: return out;
+            }
+        }
+
+        // Columns and the output are indexed by row; scratch blocks by position in the block
+        private static int offset(int operand, int from) {
+            int kind = kind(operand);
+            return kind == COLUMN || kind == OUTPUT ? from : 0;
+        }
+
+        /** Returns the compiled program, one instruction per line. */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Kernel for " + expression + ":");
+            if (ops.length == 0) {
+                sb.append("\n  out = ").append(name(root));
+            }
+            for (int j = 0; j < ops.length; j++) {
+                sb.append("\n  ").append(name(args[j][0])).append(" = ")
+                        .append(name(args[j][1])).append(' ').append(ops[j]).append(' ')
+                        .append(name(args[j][2]));
+            }
+            return sb.toString();
+        }
+
+        private String name(int operand) {
+            switch (kind(operand)) {
+                case COLUMN: return "x" + index(operand);
+                case REGISTER: return "r" + index(operand);
+                case CONSTANT: return Double.toString(constants[index(operand)]);
+                default: return "out";
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.effectivejava.item38.extensibleenums;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares per-element evaluation with BatchEvaluator:
+ * 1. Each Operation applied to two columns - op.apply per element versus
+ *    BatchEvaluator.apply
+ * 2. An expression tree over three columns - Expression.evaluate per row
+ *    versus a compiled Kernel
+ *
+ * Usage: BatchEvaluatorBenchmark [rows] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class BatchEvaluatorBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 38: Batch Evaluator Benchmark ===\n");
+        System.out.println("   " + rows + " rows, best of " + (rounds - warmup) + " rounds after "
+                + warmup + " warm-up\n");
+
+        Random random = new Random(42);
+        double[][] columns = new double[3][rows];
+        for (double[] column : columns) {
+            for (int i = 0; i < rows; i++) {
+                column[i] = random.nextDouble() * 100 + 1;
+            }
+        }
+        double[] out = new double[rows];
+        double[] expected = new double[rows];
+
+        // 1. Single operations, all six in turn (so op.apply sees every type)
+        Operation[] ops = {
+            BasicOperation.PLUS, BasicOperation.MINUS, BasicOperation.TIMES, BasicOperation.DIVIDE,
+            ExtendedOperation.REMAINDER, ExtendedOperation.EXP
+        };
+        long bestPerElement = Long.MAX_VALUE;
+        long bestBatch = Long.MAX_VALUE;
+        boolean same = true;
+        for (int round = 0; round < rounds; round++) {
+            long perElement = 0;
+            long batch = 0;
+            for (Operation op : ops) {
+                long start = System.nanoTime();
+                for (int i = 0; i < rows; i++) {
+                    expected[i] = op.apply(columns[0][i], columns[1][i]);
+                }
+                perElement += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                BatchEvaluator.apply(op, columns[0], columns[1], out);
+                batch += System.nanoTime() - start;
+                same &= Arrays.equals(expected, out);
+            }
+            if (round >= warmup) {
+                bestPerElement = Math.min(bestPerElement, perElement);
+                bestBatch = Math.min(bestBatch, batch);
+            }
+        }
+        System.out.println("1. Six operations over two columns:");
+        report(bestPerElement, bestBatch, same);
+
+        // 2. ((x0 + x1) * (x0 - 2.5)) / (x2 % 7 + 1)
+        Expression x0 = Expression.variable(0);
+        Expression x1 = Expression.variable(1);
+        Expression x2 = Expression.variable(2);
+        Expression expression = Expression.apply(BasicOperation.DIVIDE,
+                Expression.apply(BasicOperation.TIMES,
+                        Expression.apply(BasicOperation.PLUS, x0, x1),
+                        Expression.apply(BasicOperation.MINUS, x0, Expression.constant(2.5))),
+                Expression.apply(BasicOperation.PLUS,
+                        Expression.apply(ExtendedOperation.REMAINDER, x2, Expression.constant(7)),
+                        Expression.constant(1)));
+        BatchEvaluator.Kernel kernel = BatchEvaluator.compile(expression);
+
+        bestPerElement = Long.MAX_VALUE;
+        bestBatch = Long.MAX_VALUE;
+        same = true;
+        double[] row = new double[3];
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rows; i++) {
+                row[0] = columns[0][i];
+                row[1] = columns[1][i];
+                row[2] = columns[2][i];
+                expected[i] = expression.evaluate(row);
+            }
+            long perElement = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            kernel.evaluate(columns, out);
+            long batch = System.nanoTime() - start;
+            same &= Arrays.equals(expected, out);
+
+            if (round >= warmup) {
+                bestPerElement = Math.min(bestPerElement, perElement);
+                bestBatch = Math.min(bestBatch, batch);
+            }
+        }
+        System.out.println("\n2. Expression " + expression + ":");
+        report(bestPerElement, bestBatch, same);
+    }
+
+    private static void report(long perElementNanos, long batchNanos, boolean same) {
+        System.out.printf("   Per element: %8.1f ms%n", perElementNanos / 1e6);
+        System.out.printf("   Batched:     %8.1f ms%n", batchNanos / 1e6);
+        System.out.printf("   Speedup:     %8.1fx  (same results: %b)%n",
+                perElementNanos / (double) batchNanos, same);
+    }
+}
@@ -0,0 +1,161 @@
+package com.effectivejava.item38.extensibleenums;
+
+import java.util.Objects;
+
+/**
+ * An immutable expression tree over Operations: constants, variables and
+ * binary applications.
+ *
+ *   // (x0 + x1) * 2
+ *   Expression e = Expression.apply(BasicOperation.TIMES,
+ *           Expression.apply(BasicOperation.PLUS, Expression.variable(0), Expression.variable(1)),
+ *           Expression.constant(2));
+ *
+ * Because operations are typed as the Operation interface (Item 38), a
+ * tree can mix BasicOperation, ExtendedOperation and operations defined
+ * anywhere else.
+ *
+ * evaluate() walks the tree once per call, which is fine for a single
+ * value. To evaluate one expression over many rows, compile it with
+ * BatchEvaluator.compile instead.
+ */
+public abstract class Expression {
+
+    // Package-private: the node types are known to BatchEvaluator
+    Expression() { }
+
+    public static Expression constant(double value) {
+        return new Constant(value);
+    }
+
+    /**
+     * Returns the variable with the given index: variables[index] in
+     * evaluate, column index in a BatchEvaluator kernel.
+     *
+     * @throws IllegalArgumentException if index is negative
+     */
+    public static Expression variable(int index) {
+        return variable("x" + index, index);
+    }
+
+    /**
+     * Returns the variable with the given index, shown as name.
+     *
+     * @throws IllegalArgumentException if index is negative
+     */
+    public static Expression variable(String name, int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Variable index must be non-negative: " + index);
+        }
+        return new Variable(Objects.requireNonNull(name), index);
+    }
+
+    public static Expression apply(Operation op, Expression left, Expression right) {
+        return new Binary(op, left, right);
+    }
+
+    /**
+     * Evaluates this expression by walking the tree.
+     *
+     * @throws IndexOutOfBoundsException if a variable has no value
+     */
+    public abstract double evaluate(double... variables);
+
+    /** Returns the number of variables referenced: one more than the highest index. */
+    public abstract int variableCount();
+
+    // Returns this expression with every subtree that has no variables
+    // replaced by its value. Used by the compilers before emitting code.
+    Expression foldConstants() {
+        return this;
+    }
+
+    static final class Constant extends Expression {
+        final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double evaluate(double... variables) {
+            return value;
+        }
+
+        @Override
+        public int variableCount() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return Double.toString(value);
+        }
+    }
+
+    static final class Variable extends Expression {
+        final String name;
+        final int index;
+
+        Variable(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        @Override
+        public double evaluate(double... variables) {
+            return variables[index];
+        }
+
+        @Override
+        public int variableCount() {
+            return index + 1;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static final class Binary extends Expression {
+        final Operation op;
+        final Expression left;
+        final Expression right;
+
+        Binary(Operation op, Expression left, Expression right) {
+            this.op = Objects.requireNonNull(op);
+            this.left = Objects.requireNonNull(left);
+            this.right = Objects.requireNonNull(right);
+        }
+
+        @Override
+        public double evaluate(double... variables) {
+            return op.apply(left.evaluate(variables), right.evaluate(variables));
+        }
+
+        @Override
+        Expression foldConstants() {
+            Expression l = left.foldConstants();
+            Expression r = right.foldConstants();
+            if (l instanceof Constant && r instanceof Constant) {
+                return new Constant(op.apply(((Constant) l).value, ((Constant) r).value));
+            }
+            return l == left && r == right ? this : new Binary(op, l, r);
+        }
+
+        @Override
+        public int variableCount() {
+            return Math.max(left.variableCount(), right.variableCount());
+        }
+
+        @Override
+        public String toString() {
+            String symbol = op.toString();
+            // Functions print as calls, so the text parses back to the same tree
+            return OperationRegistry.Builder.isIdentifier(symbol)
+                    ? symbol + "(" + left + ", " + right + ")"
+                    : "(" + left + " " + symbol + " " + right + ")";
+        }
+    }
+}
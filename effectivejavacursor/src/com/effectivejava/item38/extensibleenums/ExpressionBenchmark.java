@@ -0,0 +1,74 @@
+package com.effectivejava.item38.extensibleenums;
+
+import java.util.Random;
+
+/**
+ * Compares the three ways to evaluate a parsed formula many times:
+ * 1. Interpreted - Expression.evaluate walks the tree
+ * 2. Lambdas     - ExpressionCompiler.compileToLambdas
+ * 3. Bytecode    - ExpressionCompiler.compile (hidden class)
+ *
+ * Usage: ExpressionBenchmark [evaluations] [rounds] [formula]
+ *   The formula may use variables a, b and c.
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class ExpressionBenchmark {
+
+    private static final String DEFAULT_FORMULA = "(a + b) * (a - 2.5) / (c % 7 + 1) + a ^ 2 - b * c";
+    private static final int INPUTS = 1024;
+
+    public static void main(String[] args) {
+        int evaluations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String text = args.length > 2 ? args[2] : DEFAULT_FORMULA;
+        int warmup = rounds / 2;
+
+        Expression expression = new ExpressionParser(OperationRegistry.standard()).parse(text, "a", "b", "c");
+        ExpressionCompiler.Formula interpreted = expression::evaluate;
+        ExpressionCompiler.Formula lambdas = ExpressionCompiler.compileToLambdas(expression);
+        ExpressionCompiler.Formula bytecode = ExpressionCompiler.compile(expression);
+
+        System.out.println("=== Item 38: Expression Evaluation Benchmark ===\n");
+        System.out.println("   Formula: " + text);
+        System.out.println("   Parsed:  " + expression);
+        System.out.println("   " + evaluations + " evaluations, best of " + (rounds - warmup)
+                + " rounds after " + warmup + " warm-up\n");
+
+        Random random = new Random(42);
+        double[][] inputs = new double[INPUTS][];
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = new double[] { random.nextDouble() * 10, random.nextDouble() * 10, random.nextDouble() * 10 };
+        }
+
+        String[] names = { "Interpreted", "Lambdas", "Bytecode" };
+        ExpressionCompiler.Formula[] formulas = { interpreted, lambdas, bytecode };
+        long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        double[] checksums = new double[formulas.length];
+        for (int round = 0; round < rounds; round++) {
+            for (int f = 0; f < formulas.length; f++) {
+                long start = System.nanoTime();
+                checksums[f] = run(formulas[f], inputs, evaluations);
+                long nanos = System.nanoTime() - start;
+                if (round >= warmup) {
+                    best[f] = Math.min(best[f], nanos);
+                }
+            }
+        }
+
+        for (int f = 0; f < formulas.length; f++) {
+            System.out.printf("   %-12s %6.1f ns/eval  %6.1fM evals/s  (checksum %.6e)%n", names[f],
+                    best[f] / (double) evaluations, evaluations / (best[f] / 1e3), checksums[f]);
+        }
+        System.out.printf("   Bytecode vs interpreted: %.1fx%n", best[0] / (double) best[2]);
+    }
+
+    private static double run(ExpressionCompiler.Formula formula, double[][] inputs, int evaluations) {
+        double sum = 0;
+        for (int i = 0; i < evaluations; i++) {
+            sum += formula.evaluate(inputs[i & (INPUTS - 1)]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,427 @@
+package com.effectivejava.item38.extensibleenums;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an Expression into a Formula, so that evaluating the same
+ * formula many times doesn't walk the tree each time.
+ *
+ * Two strategies:
+ *
+ * compile() generates a class whose evaluate method is the expression as
+ * straight-line bytecode - (a + b) * 2 becomes
+ *   aload v; iconst_0; daload; aload v; iconst_1; daload; dadd; ldc2_w 2.0; dmul; dreturn
+ * and defines it as a hidden class (MethodHandles.Lookup.defineHiddenClass),
+ * which the JVM can unload once the Formula is unreachable. BasicOperation
+ * and ExtendedOperation become single instructions (or a Math.pow call);
+ * any other Operation is called through the interface. The JIT then
+ * compiles evaluate like any hand-written method.
+ *
+ * compileToLambdas() builds a tree of lambdas instead: no tree-walking
+ * dispatch and no AST, but still one call per node. It needs no bytecode
+ * and is the fallback for formulas too large for one method.
+ *
+ * Both fold constant subtrees first, and both give bit-for-bit the same
+ * results as Expression.evaluate.
+ */
+public final class ExpressionCompiler {
+
+    // A method's bytecode is limited to 64 KB
+    private static final int MAX_CODE_LENGTH = 65_535;
+
+    private ExpressionCompiler() { }
+
+    /**
+     * A compiled expression. variables[i] is the value of variable i.
+     * Implementations are immutable and thread-safe.
+     */
+    @FunctionalInterface
+    public interface Formula {
+        double evaluate(double... variables);
+    }
+
+    /**
+     * Compiles expression to bytecode, falling back to compileToLambdas if
+     * it is too large for a single method.
+     */
+    public static Formula compile(Expression expression) {
+        Expression folded = expression.foldConstants();
+        FormulaClassWriter writer = new FormulaClassWriter(folded);
+        byte[] bytes = writer.toByteArray();
+        if (bytes == null) {
+            return compileToLambdas(folded);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (Formula) lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, Operation[].class))
+                    .invoke(writer.calledOperations());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Could not define formula class for " + folded, t);
+        }
+    }
+
+    /** Compiles expression to a tree of lambdas. */
+    public static Formula compileToLambdas(Expression expression) {
+        return lambdaFor(expression.foldConstants());
+    }
+
+    private static Formula lambdaFor(Expression e) {
+        if (e instanceof Expression.Constant) {
+            double value = ((Expression.Constant) e).value;
+            return v -> value;
+        }
+        if (e instanceof Expression.Variable) {
+            int index = ((Expression.Variable) e).index;
+            return v -> v[index];
+        }
+        Expression.Binary b = (Expression.Binary) e;
+        Formula l = lambdaFor(b.left);
+        Formula r = lambdaFor(b.right);
+        // Each case is a separate lambda class, so the arithmetic is inline
+        if (b.op == BasicOperation.PLUS) return v -> l.evaluate(v) + r.evaluate(v);
+        if (b.op == BasicOperation.MINUS) return v -> l.evaluate(v) - r.evaluate(v);
+        if (b.op == BasicOperation.TIMES) return v -> l.evaluate(v) * r.evaluate(v);
+        if (b.op == BasicOperation.DIVIDE) return v -> l.evaluate(v) / r.evaluate(v);
+        if (b.op == ExtendedOperation.REMAINDER) return v -> l.evaluate(v) % r.evaluate(v);
+        if (b.op == ExtendedOperation.EXP) return v -> Math.pow(l.evaluate(v), r.evaluate(v));
+        Operation op = b.op;
+        return v -> op.apply(l.evaluate(v), r.evaluate(v));
+    }
+
+    /*
+     * Writes a class file equivalent to:
+     *
+     *   final class GeneratedFormula implements ExpressionCompiler.Formula {
+     *       private final Operation[] ops;  // Operations called through the interface
+     *       GeneratedFormula(Operation[] ops) { this.ops = ops; }
+     *       public double evaluate(double[] v) { return <expression>; }
+     *       public String toString() { return "<expression>"; }
+     *   }
+     *
+     * The code has no branches, so no StackMapTable is needed.
+     */
+    private static final class FormulaClassWriter {
+        private static final String CLASS_NAME = "com/effectivejava/item38/extensibleenums/GeneratedFormula";
+        private static final String OPERATION = "com/effectivejava/item38/extensibleenums/Operation";
+        private static final String FORMULA = "com/effectivejava/item38/extensibleenums/ExpressionCompiler$Formula";
+        private static final String OPS_DESCRIPTOR = "[L" + OPERATION + ";";
+        private static final int JAVA_17 = 61;
+        private static final int MAX_TEXT_LENGTH = 1_000;
+
+        // Opcodes
+        private static final int ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, ICONST_0 = 0x03, BIPUSH = 0x10,
+                SIPUSH = 0x11, LDC_W = 0x13, LDC2_W = 0x14, DALOAD = 0x31, AALOAD = 0x32,
+                DADD = 0x63, DSUB = 0x67, DMUL = 0x6b, DDIV = 0x6f, DREM = 0x73,
+                DRETURN = 0xaf, ARETURN = 0xb0, RETURN = 0xb1, GETFIELD = 0xb4, PUTFIELD = 0xb5,
+                INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, INVOKEINTERFACE = 0xb9;
+
+        private final Expression expression;
+        private final ConstantPool pool = new ConstantPool();
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private final List<Operation> calledOperations = new ArrayList<>();
+        private int stack;
+        private int maxStack;
+
+        FormulaClassWriter(Expression expression) {
+            this.expression = expression;
+        }
+
+        Operation[] calledOperations() {
+            return calledOperations.toArray(new Operation[0]);
+        }
+
+        // Returns the class file, or null if the expression is too large
+        byte[] toByteArray() {
+            emit(expression);
+            code.write(DRETURN);
+            if (code.size() > MAX_CODE_LENGTH || pool.size() > 65_535) {
+                return null;
+            }
+            try {
+                return writeClass();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);  // Can't happen: writing to memory
+            }
+        }
+
+        private void emit(Expression e) {
+            if (e instanceof Expression.Constant) {
+                op(LDC2_W);
+                u2(pool.doubleConstant(((Expression.Constant) e).value));
+                push(2);
+                return;
+            }
+            if (e instanceof Expression.Variable) {
+                op(ALOAD_1);
+                push(1);
+                pushInt(((Expression.Variable) e).index);
+                op(DALOAD);
+                pop(2);
+                push(2);
+                return;
+            }
+            Expression.Binary b = (Expression.Binary) e;
+            int instruction = instructionFor(b.op);
+            if (instruction != 0) {
+                emit(b.left);
+                emit(b.right);
+                op(instruction);
+                pop(2);
+            } else if (b.op == ExtendedOperation.EXP) {
+                emit(b.left);
+                emit(b.right);
+                op(INVOKESTATIC);
+                u2(pool.method("java/lang/Math", "pow", "(DD)D", false));
+                pop(2);
+            } else {
+                // ops[k].apply(left, right)
+                op(ALOAD_0);
+                push(1);
+                op(GETFIELD);
+                u2(pool.field(CLASS_NAME, "ops", OPS_DESCRIPTOR));
+                pushInt(calledOperations.size());
+                calledOperations.add(b.op);
+                op(AALOAD);
+                pop(1);
+                emit(b.left);
+                emit(b.right);
+                op(INVOKEINTERFACE);
+                u2(pool.method(OPERATION, "apply", "(DD)D", true));
+                code.write(5);  // Argument slots, including the receiver
+                code.write(0);
+                pop(5);
+                push(2);
+            }
+        }
+
+        private static int instructionFor(Operation op) {
+            if (op == BasicOperation.PLUS) return DADD;
+            if (op == BasicOperation.MINUS) return DSUB;
+            if (op == BasicOperation.TIMES) return DMUL;
+            if (op == BasicOperation.DIVIDE) return DDIV;
+            if (op == ExtendedOperation.REMAINDER) return DREM;
+            return 0;
+        }
+
+        private void pushInt(int value) {
+            if (value <= 5) {
+                op(ICONST_0 + value);
+            } else if (value <= Byte.MAX_VALUE) {
+                op(BIPUSH);
+                code.write(value);
+            } else if (value <= Short.MAX_VALUE) {
+                op(SIPUSH);
+                u2(value);
+            } else {
+                op(LDC_W);
+                u2(pool.intConstant(value));
+            }
+            push(1);
+        }
+
+        private void op(int opcode) {
+            code.write(opcode);
+        }
+
+        private void u2(int value) {
+            code.write(value >>> 8);
+            code.write(value);
+        }
+
+        private void push(int slots) {
+            stack += slots;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void pop(int slots) {
+            stack -= slots;
+        }
+
+        private byte[] writeClass() throws IOException {
+            // Resolve every constant before writing the pool
+            int thisClass = pool.classRef(CLASS_NAME);
+            int superClass = pool.classRef("java/lang/Object");
+            int formula = pool.classRef(FORMULA);
+            int opsName = pool.utf8("ops");
+            int opsDescriptor = pool.utf8(OPS_DESCRIPTOR);
+            int opsField = pool.field(CLASS_NAME, "ops", OPS_DESCRIPTOR);
+            int objectInit = pool.method("java/lang/Object", "<init>", "()V", false);
+            int codeAttribute = pool.utf8("Code");
+            int init = pool.utf8("<init>");
+            int initDescriptor = pool.utf8("(" + OPS_DESCRIPTOR + ")V");
+            int evaluate = pool.utf8("evaluate");
+            int evaluateDescriptor = pool.utf8("([D)D");
+            int toString = pool.utf8("toString");
+            int toStringDescriptor = pool.utf8("()Ljava/lang/String;");
+            int text = pool.string(describe(expression));
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(JAVA_17);
+            pool.writeTo(out);
+            out.writeShort(0x0030);  // ACC_FINAL | ACC_SUPER
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(formula);
+
+            out.writeShort(1);  // Fields
+            out.writeShort(0x0012);  // ACC_PRIVATE | ACC_FINAL
+            out.writeShort(opsName);
+            out.writeShort(opsDescriptor);
+            out.writeShort(0);
+
+            out.writeShort(3);  // Methods
+            byte[] initCode = {
+                (byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >>> 8), (byte) objectInit,
+                (byte) ALOAD_0, (byte) ALOAD_1, (byte) PUTFIELD, (byte) (opsField >>> 8), (byte) opsField,
+                (byte) RETURN
+            };
+            writeMethod(out, 0x0000, init, initDescriptor, codeAttribute, 2, 2, initCode);
+            writeMethod(out, 0x0001, evaluate, evaluateDescriptor, codeAttribute,
+                    maxStack, 2, code.toByteArray());
+            byte[] toStringCode = { (byte) LDC_W, (byte) (text >>> 8), (byte) text, (byte) ARETURN };
+            writeMethod(out, 0x0001, toString, toStringDescriptor, codeAttribute, 1, 1, toStringCode);
+
+            out.writeShort(0);  // Class attributes
+            return bytes.toByteArray();
+        }
+
+        // The formula's toString: the expression, shortened to fit a constant pool string
+        private static String describe(Expression e) {
+            String s = e.toString();
+            return s.length() <= MAX_TEXT_LENGTH ? s : s.substring(0, MAX_TEXT_LENGTH) + "...";
+        }
+
+        private static void writeMethod(DataOutputStream out, int access, int name, int descriptor,
+                                        int codeAttribute, int maxStack, int maxLocals,
+                                        byte[] code) throws IOException {
+            out.writeShort(access);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);  // Exception table
+            out.writeShort(0);  // Code attributes
+        }
+    }
+
+    // A class file constant pool that shares equal entries
+    private static final class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private int next = 1;
+
+        int size() {
+            return next;
+        }
+
+        int utf8(String s) {
+            return entry("U" + s, 1, () -> {
+                out.writeByte(1);
+                out.writeUTF(s);
+            });
+        }
+
+        int intConstant(int value) {
+            return entry("I" + value, 1, () -> {
+                out.writeByte(3);
+                out.writeInt(value);
+            });
+        }
+
+        int doubleConstant(double value) {
+            // Keyed by bits, so that 0.0 and -0.0 (and NaNs) stay distinct
+            return entry("D" + Double.doubleToRawLongBits(value), 2, () -> {
+                out.writeByte(6);
+                out.writeDouble(value);
+            });
+        }
+
+        int string(String s) {
+            int utf8 = utf8(s);
+            return entry("S" + s, 1, () -> {
+                out.writeByte(8);
+                out.writeShort(utf8);
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return entry("C" + internalName, 1, () -> {
+                out.writeByte(7);
+                out.writeShort(name);
+            });
+        }
+
+        int field(String owner, String name, String descriptor) {
+            return member(9, owner, name, descriptor);
+        }
+
+        int method(String owner, String name, String descriptor, boolean isInterface) {
+            return member(isInterface ? 11 : 10, owner, name, descriptor);
+        }
+
+        private int member(int tag, String owner, String name, String descriptor) {
+            int ownerClass = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entry("N" + name + ":" + descriptor, 1, () -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return entry("M" + tag + owner + "." + name + descriptor, 1, () -> {
+                out.writeByte(tag);
+                out.writeShort(ownerClass);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        // Writes an entry (tag and contents) the first time key is seen
+        private int entry(String key, int slots, Writer writer) {
+            Integer existing = indexes.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                writer.write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);  // Can't happen: writing to memory
+            }
+            int index = next;
+            next += slots;  // Double entries take two slots
+            indexes.put(key, index);
+            return index;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            target.writeShort(next);
+            bytes.writeTo(target);
+        }
+
+        private interface Writer {
+            void write() throws IOException;
+        }
+    }
+}
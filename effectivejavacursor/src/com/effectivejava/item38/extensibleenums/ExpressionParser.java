@@ -0,0 +1,213 @@
+package com.effectivejava.item38.extensibleenums;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses formulas such as "(a + b) * -c ^ 2" into Expressions, resolving
+ * operator symbols and function names through an OperationRegistry.
+ *
+ *   ExpressionParser parser = new ExpressionParser(OperationRegistry.standard());
+ *   Expression e = parser.parse("(a + b) * 2", "a", "b");
+ *   e.evaluate(1, 2);  // 6.0
+ *
+ * Grammar (operators bind by their registered precedence, by precedence
+ * climbing):
+ *   expression := unary (infix-operator unary)*
+ *   unary      := ('-' | '+') unary | primary
+ *   primary    := number | variable | function '(' expression ',' expression ')'
+ *               | '(' expression ')'
+ *
+ * Unary minus binds at OperationRegistry.UNARY_PRECEDENCE, so -x^2 is
+ * -(x^2) while -x*y is (-x)*y.
+ *
+ * Parsing is meant to happen once per formula; evaluate the result many
+ * times through ExpressionCompiler. Parsers are immutable and thread-safe.
+ */
+public final class ExpressionParser {
+
+    private final OperationRegistry registry;
+
+    public ExpressionParser(OperationRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Parses text. Variable names[i] becomes variable i.
+     *
+     * @throws IllegalArgumentException if text is not a valid expression,
+     *         with the position of the error in the message
+     */
+    public Expression parse(String text, String... variables) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < variables.length; i++) {
+            if (!OperationRegistry.Builder.isIdentifier(variables[i])) {
+                throw new IllegalArgumentException("Not a valid variable name: \"" + variables[i] + "\"");
+            }
+            indexes.put(variables[i], i);
+        }
+        Cursor cursor = new Cursor(text, indexes);
+        Expression e = cursor.parseExpression(1);
+        cursor.skipWhitespace();
+        if (!cursor.atEnd()) {
+            throw cursor.error("unexpected '" + text.charAt(cursor.pos) + "'");
+        }
+        return e;
+    }
+
+    // The state of one parse
+    private final class Cursor {
+        final String text;
+        final Map<String, Integer> variables;
+        int pos;
+
+        Cursor(String text, Map<String, Integer> variables) {
+            this.text = text;
+            this.variables = variables;
+        }
+
+        // Precedence climbing: parses operators that bind at least as tightly as minPrecedence
+        Expression parseExpression(int minPrecedence) {
+            Expression left = parseUnary();
+            while (true) {
+                skipWhitespace();
+                int start = pos;
+                OperationRegistry.Infix op = peekInfix();
+                if (op == null || op.precedence < minPrecedence) {
+                    pos = start;
+                    return left;
+                }
+                Expression right = parseExpression(op.rightAssociative ? op.precedence : op.precedence + 1);
+                left = Expression.apply(op.op, left, right);
+            }
+        }
+
+        Expression parseUnary() {
+            skipWhitespace();
+            if (consume('-')) {
+                Expression operand = parseExpression(OperationRegistry.UNARY_PRECEDENCE);
+                if (operand instanceof Expression.Constant) {
+                    return Expression.constant(-((Expression.Constant) operand).value);
+                }
+                // -x == -1 * x exactly, including for x == 0 (gives -0.0)
+                return Expression.apply(BasicOperation.TIMES, Expression.constant(-1), operand);
+            }
+            if (consume('+')) {
+                return parseExpression(OperationRegistry.UNARY_PRECEDENCE);
+            }
+            return parsePrimary();
+        }
+
+        Expression parsePrimary() {
+            skipWhitespace();
+            if (atEnd()) {
+                throw error("expected an operand");
+            }
+            char c = text.charAt(pos);
+            if (consume('(')) {
+                Expression e = parseExpression(1);
+                expect(')');
+                return e;
+            }
+            if (isDigit(c) || c == '.') {
+                return parseNumber();
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                int start = pos;
+                String name = parseIdentifier();
+                skipWhitespace();
+                if (consume('(')) {
+                    Operation function = registry.function(name);
+                    if (function == null) {
+                        pos = start;
+                        throw error("unknown function '" + name + "'");
+                    }
+                    Expression first = parseExpression(1);
+                    expect(',');
+                    Expression second = parseExpression(1);
+                    expect(')');
+                    return Expression.apply(function, first, second);
+                }
+                Integer index = variables.get(name);
+                if (index == null) {
+                    pos = start;
+                    throw error("unknown variable '" + name + "'");
+                }
+                return Expression.variable(name, index);
+            }
+            throw error("unexpected '" + c + "'");
+        }
+
+        Expression parseNumber() {
+            int start = pos;
+            while (!atEnd() && isDigit(text.charAt(pos))) pos++;
+            if (!atEnd() && text.charAt(pos) == '.') {
+                pos++;
+                while (!atEnd() && isDigit(text.charAt(pos))) pos++;
+            }
+            if (!atEnd() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+                int mark = pos++;
+                if (!atEnd() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) pos++;
+                if (atEnd() || !isDigit(text.charAt(pos))) {
+                    pos = mark;  // Not an exponent after all
+                } else {
+                    while (!atEnd() && isDigit(text.charAt(pos))) pos++;
+                }
+            }
+            String literal = text.substring(start, pos);
+            if (literal.equals(".")) {
+                pos = start;
+                throw error("malformed number");
+            }
+            return Expression.constant(Double.parseDouble(literal));
+        }
+
+        String parseIdentifier() {
+            int start = pos++;
+            while (!atEnd() && Character.isJavaIdentifierPart(text.charAt(pos))) pos++;
+            return text.substring(start, pos);
+        }
+
+        // Consumes and returns the longest registered infix symbol at pos, or null
+        OperationRegistry.Infix peekInfix() {
+            for (String symbol : registry.symbolsLongestFirst()) {
+                if (text.startsWith(symbol, pos)) {
+                    pos += symbol.length();
+                    return registry.infix(symbol);
+                }
+            }
+            return null;
+        }
+
+        void expect(char c) {
+            skipWhitespace();
+            if (!consume(c)) {
+                throw error(atEnd() ? "expected '" + c + "' at end of input" : "expected '" + c + "'");
+            }
+        }
+
+        boolean consume(char c) {
+            if (!atEnd() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        boolean atEnd() {
+            return pos >= text.length();
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + ": " + text);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
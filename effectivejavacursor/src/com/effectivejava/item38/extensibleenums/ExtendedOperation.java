@@ -0,0 +1,32 @@
+package com.effectivejava.item38.extensibleenums;
+
+/**
+ * Extended operations enum - can add new operations!
+ */
+enum ExtendedOperation implements Operation {
+    EXP("^") {
+        public double apply(double x, double y) { return Math.pow(x, y); }
+        public void applyLoop(double[] a, int aFrom, double[] b, int bFrom,
+                              double[] out, int outFrom, int n) {
+            for (int i = 0; i < n; i++) out[outFrom + i] = Math.pow(a[aFrom + i], b[bFrom + i]);
+        }
+    },
+    REMAINDER("%") {
+        public double apply(double x, double y) { return x % y; }
+        public void applyLoop(double[] a, int aFrom, double[] b, int bFrom,
+                              double[] out, int outFrom, int n) {
+            for (int i = 0; i < n; i++) out[outFrom + i] = a[aFrom + i] % b[bFrom + i];
+        }
+    };
+    
+    private final String symbol;
+    
+    ExtendedOperation(String symbol) {
+        this.symbol = symbol;
+    }
+    
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
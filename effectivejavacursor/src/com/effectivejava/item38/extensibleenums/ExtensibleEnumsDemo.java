@@ -1,5 +1,7 @@
 package com.effectivejava.item38.extensibleenums;
 
+import java.util.Arrays;
+
 /**
  * Demonstration of Item 38: Emulate extensible enums with interfaces.
  */
@@ -34,11 +36,55 @@ public class ExtensibleEnumsDemo {
         }
         System.out.println();
         
+        System.out.println("5. BATCH EVALUATION:");
+        double[] xs = {1, 2, 3, 4};
+        double[] ys = {2, 2, 2, 2};
+        double[] out = new double[xs.length];
+        BatchEvaluator.apply(ExtendedOperation.EXP, xs, ys, out);
+        System.out.println("   EXP over columns: " + Arrays.toString(out));
+        // Any Operation works, including ones defined outside these enums
+        Expression e = Expression.apply(BasicOperation.PLUS,
+                Expression.apply(GeometryOperation.HYPOT, Expression.variable(0), Expression.variable(1)),
+                Expression.apply(BasicOperation.TIMES, Expression.constant(2), Expression.constant(5)));
+        BatchEvaluator.Kernel kernel = BatchEvaluator.compile(e);
+        System.out.println("   " + kernel.toString().replace("\n", "\n   "));
+        System.out.println("   Result: " + Arrays.toString(kernel.evaluate(new double[][] { xs, ys }, xs.length)));
+        System.out.println();
+        
+        System.out.println("6. PARSING AND COMPILING FORMULAS:");
+        OperationRegistry registry = new OperationRegistry.Builder(OperationRegistry.standard())
+                .functions(GeometryOperation.class)
+                .build();
+        ExpressionParser parser = new ExpressionParser(registry);
+        Expression parsed = parser.parse("hypot(a, b) * 2 ^ 2 - -c", "a", "b", "c");
+        ExpressionCompiler.Formula formula = ExpressionCompiler.compile(parsed);
+        System.out.println("   Parsed:   " + parsed);
+        System.out.println("   Compiled: " + formula + " (hidden class, evaluated without walking the tree)");
+        System.out.println("   At a=3, b=4, c=1: " + formula.evaluate(3, 4, 1));
+        try {
+            parser.parse("a + * b", "a", "b");
+        } catch (IllegalArgumentException ex) {
+            System.out.println("   Bad formula: " + ex.getMessage());
+        }
+        System.out.println();
+        
         System.out.println("=== Key Takeaways ===");
         System.out.println("1. Enums can't be extended, but interfaces can");
         System.out.println("2. Use interfaces to emulate extensible enums");
         System.out.println("3. Multiple enums can implement the same interface");
         System.out.println("4. This allows adding new operations without modifying existing code");
     }
+    
+    // A third-party extension: BatchEvaluator has no fast path for it, but it still works
+    private enum GeometryOperation implements Operation {
+        HYPOT {
+            public double apply(double x, double y) { return Math.hypot(x, y); }
+        };
+        
+        @Override
+        public String toString() {
+            return "hypot";
+        }
+    }
 }
 
@@ -9,57 +9,17 @@ package com.effectivejava.item38.extensibleenums;
  */
 public interface Operation {
     double apply(double x, double y);
-}
 
-/**
- * Basic operations enum implementing the interface.
- */
-enum BasicOperation implements Operation {
-    PLUS("+") {
-        public double apply(double x, double y) { return x + y; }
-    },
-    MINUS("-") {
-        public double apply(double x, double y) { return x - y; }
-    },
-    TIMES("*") {
-        public double apply(double x, double y) { return x * y; }
-    },
-    DIVIDE("/") {
-        public double apply(double x, double y) { return x / y; }
-    };
-    
-    private final String symbol;
-    
-    BasicOperation(String symbol) {
-        this.symbol = symbol;
-    }
-    
-    @Override
-    public String toString() {
-        return symbol;
+    /**
+     * Computes out[outFrom + i] = apply(a[aFrom + i], b[bFrom + i]) for
+     * i < n. BatchEvaluator calls this once per batch. The default calls
+     * apply per element; an operation can override it with a loop that
+     * has its arithmetic inline, as BasicOperation and ExtendedOperation do.
+     */
+    default void applyLoop(double[] a, int aFrom, double[] b, int bFrom,
+                           double[] out, int outFrom, int n) {
+        for (int i = 0; i < n; i++) {
+            out[outFrom + i] = apply(a[aFrom + i], b[bFrom + i]);
+        }
     }
 }
-
-/**
- * Extended operations enum - can add new operations!
- */
-enum ExtendedOperation implements Operation {
-    EXP("^") {
-        public double apply(double x, double y) { return Math.pow(x, y); }
-    },
-    REMAINDER("%") {
-        public double apply(double x, double y) { return x % y; }
-    };
-    
-    private final String symbol;
-    
-    ExtendedOperation(String symbol) {
-        this.symbol = symbol;
-    }
-    
-    @Override
-    public String toString() {
-        return symbol;
-    }
-}
-
@@ -0,0 +1,179 @@
+package com.effectivejava.item38.extensibleenums;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The operations an ExpressionParser understands, looked up by symbol.
+ *
+ * Each operation is registered under its toString() - the symbol the
+ * enums in this package already carry. A symbol made of punctuation is an
+ * infix operator with a precedence; a symbol that is an identifier is a
+ * two-argument function, written hypot(x, y).
+ *
+ *   OperationRegistry registry = new OperationRegistry.Builder(OperationRegistry.standard())
+ *           .functions(GeometryOperation.class)
+ *           .build();
+ *
+ * functions() and infix() accept a whole enum type through a bounded type
+ * token, Class<T extends Enum<T> & Operation> (Item 38), so a new family
+ * of operations plugs in with one line.
+ *
+ * Registries are immutable; build a new one to add operations.
+ */
+public final class OperationRegistry {
+
+    /** Precedence of unary minus: binds tighter than * but looser than ^. */
+    public static final int UNARY_PRECEDENCE = 25;
+
+    private static final OperationRegistry STANDARD = new Builder()
+            .infix(BasicOperation.PLUS, 10, false)
+            .infix(BasicOperation.MINUS, 10, false)
+            .infix(BasicOperation.TIMES, 20, false)
+            .infix(BasicOperation.DIVIDE, 20, false)
+            .infix(ExtendedOperation.REMAINDER, 20, false)
+            .infix(ExtendedOperation.EXP, 30, true)
+            .build();
+
+    private final Map<String, Infix> infix;
+    private final Map<String, Operation> functions;
+    private final List<String> symbolsLongestFirst;
+
+    private OperationRegistry(Builder builder) {
+        this.infix = Collections.unmodifiableMap(new HashMap<>(builder.infix));
+        this.functions = Collections.unmodifiableMap(new HashMap<>(builder.functions));
+        List<String> symbols = new ArrayList<>(infix.keySet());
+        symbols.sort(Comparator.comparingInt(String::length).reversed());
+        this.symbolsLongestFirst = Collections.unmodifiableList(symbols);
+    }
+
+    /**
+     * Returns the registry of BasicOperation and ExtendedOperation, with
+     * the usual precedence: + - below * / %, below ^ (right-associative).
+     */
+    public static OperationRegistry standard() {
+        return STANDARD;
+    }
+
+    // Returns the infix operator with this symbol, or null
+    Infix infix(String symbol) {
+        return infix.get(symbol);
+    }
+
+    // Returns the function with this name, or null
+    Operation function(String name) {
+        return functions.get(name);
+    }
+
+    // Infix symbols, longest first, so the lexer finds "**" before "*"
+    List<String> symbolsLongestFirst() {
+        return symbolsLongestFirst;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationRegistry(infix=" + infix.keySet() + ", functions=" + functions.keySet() + ")";
+    }
+
+    // An infix operator and how tightly it binds
+    static final class Infix {
+        final Operation op;
+        final int precedence;
+        final boolean rightAssociative;
+
+        Infix(Operation op, int precedence, boolean rightAssociative) {
+            this.op = op;
+            this.precedence = precedence;
+            this.rightAssociative = rightAssociative;
+        }
+    }
+
+    public static class Builder {
+        private final Map<String, Infix> infix = new HashMap<>();
+        private final Map<String, Operation> functions = new HashMap<>();
+
+        public Builder() { }
+
+        /** Starts from the operations of an existing registry. */
+        public Builder(OperationRegistry base) {
+            infix.putAll(base.infix);
+            functions.putAll(base.functions);
+        }
+
+        /**
+         * Registers op as an infix operator under its toString().
+         * Higher precedence binds tighter.
+         *
+         * @throws IllegalArgumentException if the symbol is empty or
+         *         contains letters, digits, whitespace, parentheses,
+         *         commas or periods, or precedence is not positive
+         */
+        public Builder infix(Operation op, int precedence, boolean rightAssociative) {
+            String symbol = op.toString();
+            if (symbol.isEmpty() || !symbol.chars().allMatch(Builder::isOperatorChar)) {
+                throw new IllegalArgumentException("Not a valid operator symbol: \"" + symbol + "\"");
+            }
+            if (precedence <= 0) {
+                throw new IllegalArgumentException("Precedence must be positive: " + precedence);
+            }
+            infix.put(symbol, new Infix(op, precedence, rightAssociative));
+            return this;
+        }
+
+        /** Registers every constant of an operation enum as a left-associative infix operator. */
+        public <T extends Enum<T> & Operation> Builder infix(Class<T> opEnumType, int precedence) {
+            for (T op : opEnumType.getEnumConstants()) {
+                infix(op, precedence, false);
+            }
+            return this;
+        }
+
+        /**
+         * Registers op as a function under its toString().
+         *
+         * @throws IllegalArgumentException if the name is not an identifier
+         */
+        public Builder function(Operation op) {
+            String name = op.toString();
+            if (!isIdentifier(name)) {
+                throw new IllegalArgumentException("Not a valid function name: \"" + name + "\"");
+            }
+            functions.put(name, Objects.requireNonNull(op));
+            return this;
+        }
+
+        /** Registers every constant of an operation enum as a function. */
+        public <T extends Enum<T> & Operation> Builder functions(Class<T> opEnumType) {
+            for (T op : opEnumType.getEnumConstants()) {
+                function(op);
+            }
+            return this;
+        }
+
+        public OperationRegistry build() {
+            return new OperationRegistry(this);
+        }
+
+        private static boolean isOperatorChar(int c) {
+            return !Character.isLetterOrDigit(c) && !Character.isWhitespace(c)
+                    && c != '(' && c != ')' && c != ',' && c != '.' && c != '_';
+        }
+
+        static boolean isIdentifier(String s) {
+            if (s.isEmpty() || !Character.isJavaIdentifierStart(s.charAt(0))) {
+                return false;
+            }
+            for (int i = 1; i < s.length(); i++) {
+                if (!Character.isJavaIdentifierPart(s.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.effectivejava.item39.preferannotations;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Repeatable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The annotated methods of a class, found once and cached.
+ *
+ *   for (AnnotationIndex.Entry e : AnnotationIndex.of(Sample.class).methodsAnnotatedWith(Test.class)) {
+ *       e.handle().invoke();
+ *   }
+ *
+ * Reflection copies: every getDeclaredMethods() call returns a new array
+ * of new Method objects, and every getAnnotation() call on them walks
+ * annotation maps. A framework that scans the same classes on each
+ * request dispatch pays that every time. AnnotationIndex.of computes a
+ * class's index on first use - its annotated methods, their annotation
+ * instances (repeated annotations unpacked from their containers), and
+ * a MethodHandle for each - and returns the same index after that.
+ *
+ * CACHE LIFETIME: the indexes are held by a ClassValue, which stores each
+ * value with its Class. When a class loader becomes unreachable, its
+ * classes and their indexes are collected together; nothing here keeps a
+ * class loaded. (That holds because the values don't refer back to the
+ * ClassValue.)
+ *
+ * Immutable and thread-safe. Two threads indexing a class at once may
+ * both compute it, but only one index is kept.
+ */
+public final class AnnotationIndex {
+
+    private static final ClassValue<AnnotationIndex> INDEXES = new ClassValue<>() {
+        @Override
+        protected AnnotationIndex computeValue(Class<?> type) {
+            return new AnnotationIndex(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final List<Entry> methods;
+    private final Map<Class<? extends Annotation>, List<Entry>> byAnnotation;
+
+    private AnnotationIndex(Class<?> type) {
+        this.type = type;
+        Method[] declared = type.getDeclaredMethods();
+        Arrays.sort(declared, Comparator.comparing(Method::getName));
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<Entry> entries = new ArrayList<>();
+        Map<Class<? extends Annotation>, List<Entry>> index = new HashMap<>();
+        for (Method m : declared) {
+            if (m.isSynthetic() || m.getDeclaredAnnotations().length == 0) {
+                continue;
+            }
+            Entry entry = new Entry(m, lookup);
+            entries.add(entry);
+            for (Class<? extends Annotation> a : entry.annotations.keySet()) {
+                index.computeIfAbsent(a, k -> new ArrayList<>()).add(entry);
+            }
+        }
+        index.replaceAll((a, list) -> Collections.unmodifiableList(list));
+        this.methods = Collections.unmodifiableList(entries);
+        this.byAnnotation = index;
+    }
+
+    /** Returns the index of a class, computing it on first use. */
+    public static AnnotationIndex of(Class<?> type) {
+        return INDEXES.get(type);
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    /** Returns the methods declared by the class that have annotations, in name order. */
+    public List<Entry> methods() {
+        return methods;
+    }
+
+    /**
+     * Returns the methods with at least one annotation of the given type,
+     * directly or inside a repeated-annotation container, in name order.
+     */
+    public List<Entry> methodsAnnotatedWith(Class<? extends Annotation> annotationType) {
+        return byAnnotation.getOrDefault(annotationType, Collections.emptyList());
+    }
+
+    @Override
+    public String toString() {
+        return "AnnotationIndex(" + type.getName() + ", " + methods.size() + " annotated methods)";
+    }
+
+    /** An annotated method, its annotations, and a handle to invoke it. */
+    public static final class Entry {
+        private final Method method;
+        private final Map<Class<? extends Annotation>, List<Annotation>> annotations;
+        private final MethodHandle handle;
+        private final String accessProblem;
+
+        private Entry(Method method, MethodHandles.Lookup lookup) {
+            this.method = method;
+            Set<Class<? extends Annotation>> types = new LinkedHashSet<>();
+            for (Annotation a : method.getDeclaredAnnotations()) {
+                types.add(a.annotationType());
+                Class<? extends Annotation> repeated = repeatedType(a.annotationType());
+                if (repeated != null) {
+                    types.add(repeated);
+                }
+            }
+            Map<Class<? extends Annotation>, List<Annotation>> byType = new LinkedHashMap<>();
+            for (Class<? extends Annotation> t : types) {
+                byType.put(t, List.of(method.getDeclaredAnnotationsByType(t)));
+            }
+            this.annotations = byType;
+            MethodHandle h = null;
+            String problem = null;
+            try {
+                method.trySetAccessible();
+                h = lookup.unreflect(method);
+            } catch (IllegalAccessException e) {
+                problem = e.getMessage();
+            }
+            this.handle = h;
+            this.accessProblem = problem;
+        }
+
+        public Method method() {
+            return method;
+        }
+
+        public String name() {
+            return method.getName();
+        }
+
+        public boolean isAnnotated(Class<? extends Annotation> annotationType) {
+            return annotations.containsKey(annotationType);
+        }
+
+        /**
+         * Returns every annotation of the given type on the method,
+         * unpacking repeated annotations from their container.
+         */
+        public <A extends Annotation> List<A> annotations(Class<A> annotationType) {
+            @SuppressWarnings("unchecked")  // Keyed by annotation type
+            List<A> result = (List<A>) annotations.getOrDefault(annotationType, Collections.emptyList());
+            return result;
+        }
+
+        /** Returns the single annotation of the given type, or null if there is none or it is repeated. */
+        public <A extends Annotation> A annotation(Class<A> annotationType) {
+            List<A> all = annotations(annotationType);
+            return all.size() == 1 ? all.get(0) : null;
+        }
+
+        /**
+         * Returns a handle to the method, of the method's own type (an
+         * instance method takes its receiver first), or null if the
+         * method is not accessible from this package.
+         */
+        public MethodHandle handle() {
+            return handle;
+        }
+
+        /** Returns why handle() is null, or null if it isn't. */
+        public String accessProblem() {
+            return accessProblem;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(method.getName());
+            for (Class<? extends Annotation> t : annotations.keySet()) {
+                sb.append(" @").append(t.getSimpleName());
+            }
+            return sb.toString();
+        }
+    }
+
+    // Returns the annotation type a container holds repeats of, or null if container isn't one
+    private static Class<? extends Annotation> repeatedType(Class<? extends Annotation> container) {
+        Method value;
+        try {
+            value = container.getDeclaredMethod("value");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        Class<?> component = value.getReturnType().getComponentType();
+        if (component == null || !component.isAnnotation()) {
+            return null;
+        }
+        Repeatable repeatable = component.getAnnotation(Repeatable.class);
+        if (repeatable == null || repeatable.value() != container) {
+            return null;
+        }
+        return component.asSubclass(Annotation.class);
+    }
+}
@@ -0,0 +1,75 @@
+package com.effectivejava.item39.preferannotations;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compares finding the test methods of Sample, and their expected
+ * exceptions, by scanning with reflection every time against asking
+ * AnnotationIndex - what a framework does on each request dispatch.
+ *
+ * Usage: AnnotationIndexBenchmark [scans] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class AnnotationIndexBenchmark {
+
+    public static void main(String[] args) {
+        int scans = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 39: AnnotationIndex Benchmark ===\n");
+        System.out.println("   " + scans + " scans of Sample, best of " + (rounds - warmup)
+                + " rounds after " + warmup + " warm-up\n");
+
+        long bestReflection = Long.MAX_VALUE;
+        long bestIndex = Long.MAX_VALUE;
+        long reflectionCount = 0;
+        long indexCount = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            reflectionCount = scanWithReflection(scans);
+            long reflectionNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            indexCount = scanWithIndex(scans);
+            long indexNanos = System.nanoTime() - start;
+
+            if (round >= warmup) {
+                bestReflection = Math.min(bestReflection, reflectionNanos);
+                bestIndex = Math.min(bestIndex, indexNanos);
+            }
+        }
+
+        System.out.printf("   Reflection      %8.1f ns/scan%n", bestReflection / (double) scans);
+        System.out.printf("   AnnotationIndex %8.1f ns/scan%n", bestIndex / (double) scans);
+        System.out.printf("   Speedup: %.1fx  (same results: %b)%n",
+                bestReflection / (double) bestIndex, reflectionCount == indexCount);
+    }
+
+    private static long scanWithReflection(int scans) {
+        long found = 0;
+        for (int i = 0; i < scans; i++) {
+            for (Method m : Sample.class.getDeclaredMethods()) {
+                if (m.isAnnotationPresent(Test.class)) {
+                    found++;
+                }
+                found += m.getAnnotationsByType(ExceptionTest.class).length;
+            }
+        }
+        return found;
+    }
+
+    private static long scanWithIndex(int scans) {
+        long found = 0;
+        for (int i = 0; i < scans; i++) {
+            AnnotationIndex index = AnnotationIndex.of(Sample.class);
+            found += index.methodsAnnotatedWith(Test.class).size();
+            for (AnnotationIndex.Entry e : index.methodsAnnotatedWith(ExceptionTest.class)) {
+                found += e.annotations(ExceptionTest.class).size();
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,17 @@
+package com.effectivejava.item39.preferannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation with parameters. Repeat it to accept any of several exceptions.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Repeatable(ExceptionTests.class)
+@interface ExceptionTest {
+    Class<? extends Throwable> value();
+}
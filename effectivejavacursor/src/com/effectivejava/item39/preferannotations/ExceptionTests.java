@@ -0,0 +1,15 @@
+package com.effectivejava.item39.preferannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Container for repeated @ExceptionTest annotations (Java 8+).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@interface ExceptionTests {
+    ExceptionTest[] value();
+}
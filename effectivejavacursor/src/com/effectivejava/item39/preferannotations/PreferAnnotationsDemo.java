@@ -1,7 +1,8 @@
 package com.effectivejava.item39.preferannotations;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 
 /**
  * Demonstration of Item 39: Prefer annotations to naming patterns.
@@ -23,28 +24,42 @@ public class PreferAnnotationsDemo {
         System.out.println("   - Can pass parameters");
         System.out.println();
         
-        int tests = 0;
-        int passed = 0;
-        Class<?> testClass = Sample.class;
-        
-        for (Method m : testClass.getDeclaredMethods()) {
-            if (m.isAnnotationPresent(Test.class)) {
-                tests++;
-                try {
-                    m.invoke(null);
-                    passed++;
-                } catch (InvocationTargetException wrappedExc) {
-                    Throwable exc = wrappedExc.getCause();
-                    System.out.println(m + " failed: " + exc);
-                } catch (Exception exc) {
-                    System.out.println("Invalid @Test: " + m);
-                }
+        System.out.println("3. TEST RESULTS (Sample, run by TestRunner):");
+        TestReport report;
+        try (TestRunner runner = new TestRunner.Builder().timeout(Duration.ofMillis(200)).build()) {
+            report = runner.run(Sample.class);
+        }
+        for (TestResult result : report.results()) {
+            if (!result.passed()) {
+                System.out.println("   " + result);
             }
         }
+        System.out.println("   Tests run: " + report.total());
+        System.out.println("   Tests passed: " + report.count(TestResult.Status.PASSED));
+        System.out.println();
+        
+        System.out.println("4. RUNNING A WHOLE PACKAGE IN PARALLEL:");
+        System.out.println("   - Test methods are found once and turned into MethodHandles");
+        System.out.println("   - They run on virtual threads, each with its own timeout");
+        System.out.println("   - Results are written as JUnit XML, which CI servers read");
+        try (TestRunner runner = new TestRunner.Builder().threads(4).timeout(Duration.ofMillis(200)).build()) {
+            report = runner.runPackage(PreferAnnotationsDemo.class.getPackageName());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("   " + report);
+        String xml = report.toJUnitXml();
+        System.out.println("   JUnit XML (" + xml.length() + " chars), first lines:");
+        xml.lines().limit(4).forEach(line -> System.out.println("     " + line));
+        System.out.println();
         
-        System.out.println("3. TEST RESULTS:");
-        System.out.println("   Tests run: " + tests);
-        System.out.println("   Tests passed: " + passed);
+        System.out.println("5. CACHED ANNOTATION INDEX:");
+        System.out.println("   - getDeclaredMethods() copies every Method on every call");
+        System.out.println("   - AnnotationIndex scans a class once; a ClassValue holds the result");
+        AnnotationIndex index = AnnotationIndex.of(Sample.class);
+        System.out.println("   " + index);
+        System.out.println("   @ExceptionTest methods: " + index.methodsAnnotatedWith(ExceptionTest.class));
+        System.out.println("   Same index next time: " + (AnnotationIndex.of(Sample.class) == index));
         System.out.println();
         
         System.out.println("=== Key Takeaways ===");
@@ -52,6 +67,8 @@ public class PreferAnnotationsDemo {
         System.out.println("2. Annotations are type-safe and tool-friendly");
         System.out.println("3. Can pass parameters to annotations");
         System.out.println("4. Use @Retention and @Target appropriately");
+        System.out.println("5. A runner can resolve annotated methods once and run them in parallel");
+        System.out.println("6. Cache reflective scans per class with ClassValue");
     }
 }
 
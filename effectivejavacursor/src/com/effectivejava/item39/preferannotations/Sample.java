@@ -1,5 +1,8 @@
 package com.effectivejava.item39.preferannotations;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Example class using annotations instead of naming patterns.
  */
@@ -54,5 +57,17 @@ public class Sample {
         int[] a = new int[0];
         int i = a[1];  // Should throw ArrayIndexOutOfBoundsException
     }
+    
+    @ExceptionTest(IndexOutOfBoundsException.class)
+    @ExceptionTest(NullPointerException.class)
+    public static void doublyBad() {
+        List<String> list = new ArrayList<>();
+        list.addAll(5, null);  // May throw either exception; both pass
+    }
+    
+    @Test
+    public static void slow() throws InterruptedException {
+        // Test should time out under a runner with a short timeout
+        Thread.sleep(60_000);
+    }
 }
-
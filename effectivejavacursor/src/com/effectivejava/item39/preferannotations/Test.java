@@ -25,22 +25,3 @@ import java.lang.annotation.Target;
 public @interface Test {
     // Marker annotation - no parameters
 }
-
-/**
- * Annotation with parameters.
- */
-@Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.METHOD)
-@interface ExceptionTest {
-    Class<? extends Throwable> value();
-}
-
-/**
- * Repeatable annotation (Java 8+).
- */
-@Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.METHOD)
-@interface ExceptionTests {
-    ExceptionTest[] value();
-}
-
@@ -0,0 +1,190 @@
+package com.effectivejava.item39.preferannotations;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The results of a TestRunner run, sorted by class and method name, with
+ * a writer for the JUnit XML report format that CI servers (Jenkins,
+ * GitLab, GitHub Actions) and IDEs read.
+ *
+ * XML MAPPING: each test class is a <testsuite>. A FAILED test gets a
+ * <failure> element; an ERROR or TIMED_OUT test gets an <error> element,
+ * as JUnit reports tests that could not run to completion. Times are in
+ * seconds.
+ *
+ * Immutable.
+ */
+public final class TestReport {
+
+    private final List<TestResult> results;
+    private final long wallNanos;
+    private final LocalDateTime timestamp;
+
+    TestReport(List<TestResult> results, long wallNanos, LocalDateTime timestamp) {
+        List<TestResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparing(TestResult::className).thenComparing(TestResult::methodName));
+        this.results = Collections.unmodifiableList(sorted);
+        this.wallNanos = wallNanos;
+        this.timestamp = timestamp.truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    public List<TestResult> results() {
+        return results;
+    }
+
+    public int total() {
+        return results.size();
+    }
+
+    public int count(TestResult.Status status) {
+        int count = 0;
+        for (TestResult r : results) {
+            if (r.status() == status) count++;
+        }
+        return count;
+    }
+
+    public boolean allPassed() {
+        return count(TestResult.Status.PASSED) == total();
+    }
+
+    /** Returns the elapsed time of the whole run, in nanoseconds. */
+    public long wallNanos() {
+        return wallNanos;
+    }
+
+    /** Returns the sum of the individual test times, in nanoseconds. */
+    public long testNanos() {
+        long sum = 0;
+        for (TestResult r : results) {
+            sum += r.nanos();
+        }
+        return sum;
+    }
+
+    /** Returns the report as a JUnit XML document. */
+    public String toJUnitXml() {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<testsuites tests=\"").append(total())
+                .append("\" failures=\"").append(count(TestResult.Status.FAILED))
+                .append("\" errors=\"").append(errors(results))
+                .append("\" time=\"").append(seconds(wallNanos)).append("\">\n");
+        int from = 0;
+        while (from < results.size()) {
+            String className = results.get(from).className();
+            int to = from;
+            while (to < results.size() && results.get(to).className().equals(className)) {
+                to++;
+            }
+            appendSuite(xml, className, results.subList(from, to));
+            from = to;
+        }
+        xml.append("</testsuites>\n");
+        return xml.toString();
+    }
+
+    /** Writes the report to a file as a JUnit XML document. */
+    public void writeJUnitXml(Path file) throws IOException {
+        Files.writeString(file, toJUnitXml(), StandardCharsets.UTF_8);
+    }
+
+    private void appendSuite(StringBuilder xml, String className, List<TestResult> suite) {
+        long nanos = 0;
+        int failures = 0;
+        for (TestResult r : suite) {
+            nanos += r.nanos();
+            if (r.status() == TestResult.Status.FAILED) failures++;
+        }
+        xml.append("  <testsuite name=\"").append(escape(className))
+                .append("\" tests=\"").append(suite.size())
+                .append("\" failures=\"").append(failures)
+                .append("\" errors=\"").append(errors(suite))
+                .append("\" skipped=\"0\" time=\"").append(seconds(nanos))
+                .append("\" timestamp=\"").append(timestamp).append("\">\n");
+        for (TestResult r : suite) {
+            xml.append("    <testcase name=\"").append(escape(r.methodName()))
+                    .append("\" classname=\"").append(escape(className))
+                    .append("\" time=\"").append(seconds(r.nanos())).append('"');
+            if (r.passed()) {
+                xml.append("/>\n");
+                continue;
+            }
+            String element = r.status() == TestResult.Status.FAILED ? "failure" : "error";
+            xml.append(">\n      <").append(element).append(" message=\"").append(escape(r.message())).append('"');
+            String type = r.exception() != null ? r.exception().getClass().getName()
+                    : r.status() == TestResult.Status.TIMED_OUT ? TimeoutException.class.getName() : null;
+            if (type != null) {
+                xml.append(" type=\"").append(escape(type)).append('"');
+            }
+            if (r.exception() != null) {
+                xml.append('>').append(escape(stackTrace(r.exception()))).append("</").append(element).append(">\n");
+            } else {
+                xml.append("/>\n");
+            }
+            xml.append("    </testcase>\n");
+        }
+        xml.append("  </testsuite>\n");
+    }
+
+    private static int errors(List<TestResult> results) {
+        int errors = 0;
+        for (TestResult r : results) {
+            if (r.status() == TestResult.Status.ERROR || r.status() == TestResult.Status.TIMED_OUT) errors++;
+        }
+        return errors;
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e9);
+    }
+
+    private static String stackTrace(Throwable t) {
+        StringWriter out = new StringWriter();
+        t.printStackTrace(new PrintWriter(out));
+        return out.toString();
+    }
+
+    // Escapes text for an attribute or element; drops characters XML 1.0 can't hold
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '"': sb.append("&quot;"); break;
+                case '\t': case '\n': case '\r': sb.append(c); break;
+                default:
+                    if (c >= 0x20 && c != 0xFFFE && c != 0xFFFF) {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d tests: %d passed, %d failed, %d errors, %d timed out in %.1f ms",
+                total(), count(TestResult.Status.PASSED), count(TestResult.Status.FAILED),
+                count(TestResult.Status.ERROR), count(TestResult.Status.TIMED_OUT), wallNanos / 1e6);
+    }
+}
@@ -0,0 +1,74 @@
+package com.effectivejava.item39.preferannotations;
+
+/**
+ * The outcome of one annotated test method, as reported by TestRunner.
+ *
+ * Immutable.
+ */
+public final class TestResult {
+
+    public enum Status {
+        /** Ran and passed: returned normally, or threw an expected exception. */
+        PASSED,
+        /** Threw from a @Test, or didn't throw what an @ExceptionTest expects. */
+        FAILED,
+        /** Could not be run: not static, takes parameters, or not accessible. */
+        ERROR,
+        /** Still running when its timeout expired. */
+        TIMED_OUT
+    }
+
+    private final String className;
+    private final String methodName;
+    private final Status status;
+    private final long nanos;
+    private final String message;
+    private final Throwable exception;
+
+    TestResult(String className, String methodName, Status status, long nanos,
+               String message, Throwable exception) {
+        this.className = className;
+        this.methodName = methodName;
+        this.status = status;
+        this.nanos = nanos;
+        this.message = message;
+        this.exception = exception;
+    }
+
+    public String className() {
+        return className;
+    }
+
+    public String methodName() {
+        return methodName;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public boolean passed() {
+        return status == Status.PASSED;
+    }
+
+    /** Returns how long the test ran, in nanoseconds. */
+    public long nanos() {
+        return nanos;
+    }
+
+    /** Returns why the test didn't pass, or null if it passed. */
+    public String message() {
+        return message;
+    }
+
+    /** Returns the exception the test threw, or null if it threw none. */
+    public Throwable exception() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return className + "." + methodName + ": " + status
+                + (message != null ? " - " + message : "");
+    }
+}
@@ -0,0 +1,375 @@
+package com.effectivejava.item39.preferannotations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.module.ModuleReader;
+import java.lang.module.ResolvedModule;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Item 39: Prefer annotations to naming patterns.
+ *
+ * A test runner for @Test and @ExceptionTest methods, grown from the
+ * book's loop over getDeclaredMethods() into one that can run a large
+ * suite. It owns an executor, so it is an AutoCloseable resource:
+ *
+ *   try (TestRunner runner = new TestRunner.Builder().timeout(Duration.ofSeconds(5)).build()) {
+ *       TestReport report = runner.runPackage("com.example.checks");
+ *       report.writeJUnitXml(Paths.get("TEST-checks.xml"));
+ *   }
+ *
+ * DISCOVERY: runPackage finds every class in a package and its
+ * subpackages, on the class path (directories and jars) or in a module
+ * of the boot layer. Test methods come from AnnotationIndex, which finds
+ * them and resolves their MethodHandles once per class, so running the
+ * same classes again skips the reflection. Each test is checked before
+ * anything runs; a method that can't be run (not static, takes
+ * parameters, not accessible) is reported as an ERROR instead of
+ * failing the run.
+ *
+ * EXECUTION: each test runs on its own virtual thread, so tests that block
+ * (on I/O, sleeps, locks) overlap far beyond the core count. threads caps
+ * how many run at once, for suites that share a scarce resource; by
+ * default there is no cap. Each test gets its own timeout, counted from
+ * when it starts, not from when it was queued. A test still running at
+ * its timeout is reported as TIMED_OUT, its thread is interrupted, and
+ * its place under the cap goes to the next test. A test that ignores the
+ * interrupt keeps its thread busy, but holds up neither the report nor
+ * the tests queued behind it; until it ends, it runs in addition to the
+ * threads tests the cap allows.
+ *
+ * Tests must not depend on running alone or in a particular order.
+ */
+public final class TestRunner implements AutoCloseable {
+
+    private final int threads;                 // 0 = no cap
+    private final long timeoutNanos;
+    private final ExecutorService executor;
+    private final Semaphore permits;           // null if there is no cap
+    private final ScheduledThreadPoolExecutor timer;
+
+    public static class Builder {
+        private int threads = 0;  // 0 = no cap
+        private Duration timeout = Duration.ofSeconds(10);
+
+        /** Sets the most tests that may run at once. */
+        public Builder threads(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("Thread count must be positive: " + val);
+            }
+            threads = val;
+            return this;
+        }
+
+        /** Sets how long each test may run. */
+        public Builder timeout(Duration val) {
+            if (val.isNegative() || val.isZero()) {
+                throw new IllegalArgumentException("Timeout must be positive: " + val);
+            }
+            timeout = val;
+            return this;
+        }
+
+        public TestRunner build() {
+            return new TestRunner(this);
+        }
+    }
+
+    private TestRunner(Builder builder) {
+        threads = builder.threads;
+        timeoutNanos = builder.timeout.toNanos();
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        permits = threads > 0 ? new Semaphore(threads) : null;
+        timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "test-timeouts");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.setRemoveOnCancelPolicy(true);  // Most alarms are cancelled; don't keep them queued
+    }
+
+    /**
+     * Runs the tests of every class in a package and its subpackages.
+     *
+     * @throws IOException if the package's classes can't be listed
+     */
+    public TestReport runPackage(String packageName) throws IOException {
+        return run(findClasses(packageName));
+    }
+
+    public TestReport run(Class<?>... classes) {
+        return run(Arrays.asList(classes));
+    }
+
+    /** Runs the tests of the given classes and waits for them all to finish. */
+    public TestReport run(Collection<Class<?>> classes) {
+        LocalDateTime timestamp = LocalDateTime.now();
+        List<TestCase> tests = new ArrayList<>();
+        for (Class<?> c : classes) {
+            tests.addAll(testsOf(c));
+        }
+        long start = System.nanoTime();
+        List<CompletableFuture<TestResult>> futures = new ArrayList<>(tests.size());
+        for (TestCase test : tests) {
+            futures.add(submit(test));
+        }
+        List<TestResult> results = new ArrayList<>(tests.size());
+        for (CompletableFuture<TestResult> future : futures) {
+            results.add(future.join());
+        }
+        return new TestReport(results, System.nanoTime() - start, timestamp);
+    }
+
+    private CompletableFuture<TestResult> submit(TestCase test) {
+        CompletableFuture<TestResult> result = new CompletableFuture<>();
+        if (test.handle == null) {
+            result.complete(test.result(TestResult.Status.ERROR, 0, test.problem, null));
+            return result;
+        }
+        executor.execute(() -> {
+            if (permits != null) {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    result.complete(test.result(TestResult.Status.ERROR, 0, "Runner closed before the test started", null));
+                    return;
+                }
+            }
+            // Released by whichever comes first: the test ending or its timeout
+            AtomicBoolean held = new AtomicBoolean(permits != null);
+            Runnable release = () -> {
+                if (held.compareAndSet(true, false)) {
+                    permits.release();
+                }
+            };
+            try {
+                runTest(test, result, release);
+            } finally {
+                release.run();
+            }
+        });
+        return result;
+    }
+
+    private void runTest(TestCase test, CompletableFuture<TestResult> result, Runnable release) {
+        Object lock = new Object();
+        Thread worker = Thread.currentThread();
+        long start = System.nanoTime();
+        ScheduledFuture<?> alarm = timer.schedule(() -> {
+            synchronized (lock) {
+                if (result.complete(test.result(TestResult.Status.TIMED_OUT, timeoutNanos,
+                        "Timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms", null))) {
+                    worker.interrupt();
+                    release.run();  // A test that ignores the interrupt no longer counts against the cap
+                }
+            }
+        }, timeoutNanos, TimeUnit.NANOSECONDS);
+        TestResult outcome = test.run(start);
+        alarm.cancel(false);
+        synchronized (lock) {
+            result.complete(outcome);  // Loses to a timeout that got here first
+        }
+    }
+
+    // Finds and checks the test methods of a class, in name order
+    private static List<TestCase> testsOf(Class<?> c) {
+        List<TestCase> tests = new ArrayList<>();
+        for (AnnotationIndex.Entry m : AnnotationIndex.of(c).methods()) {
+            boolean test = m.isAnnotated(Test.class);
+            List<ExceptionTest> exceptionTests = m.annotations(ExceptionTest.class);
+            if (!test && exceptionTests.isEmpty()) {
+                continue;
+            }
+            List<Class<? extends Throwable>> expected = null;
+            if (!exceptionTests.isEmpty()) {
+                expected = new ArrayList<>();
+                for (ExceptionTest e : exceptionTests) {
+                    expected.add(e.value());
+                }
+            }
+            String problem = null;
+            MethodHandle handle = null;
+            if (test && expected != null) {
+                problem = "Has both @Test and @ExceptionTest";
+            } else if (!Modifier.isStatic(m.method().getModifiers())) {
+                problem = "Not static";
+            } else if (m.method().getParameterCount() > 0) {
+                problem = "Takes parameters";
+            } else if (m.handle() == null) {
+                problem = "Not accessible: " + m.accessProblem();
+            } else {
+                handle = m.handle().asType(MethodType.methodType(void.class));
+            }
+            tests.add(new TestCase(c.getName(), m.name(), handle, expected, problem));
+        }
+        return tests;
+    }
+
+    /**
+     * Returns the classes in a package and its subpackages, sorted by
+     * name. Classes that fail to load are left out.
+     *
+     * @throws IOException if the package's classes can't be listed
+     */
+    public static List<Class<?>> findClasses(String packageName) throws IOException {
+        String path = packageName.replace('.', '/');
+        Set<String> names = new TreeSet<>();
+        for (ResolvedModule module : ModuleLayer.boot().configuration().modules()) {
+            if (hasPackage(module.reference().descriptor().packages(), packageName)) {
+                try (ModuleReader reader = module.reference().open();
+                     Stream<String> entries = reader.list()) {
+                    entries.forEach(entry -> addClassName(names, path, entry));
+                }
+            }
+        }
+        ClassLoader loader = TestRunner.class.getClassLoader();
+        Enumeration<URL> roots = loader.getResources(path);
+        while (roots.hasMoreElements()) {
+            URL root = roots.nextElement();
+            if (root.getProtocol().equals("file")) {
+                Path dir = toPath(root);
+                try (Stream<Path> files = Files.walk(dir)) {
+                    files.forEach(file -> addClassName(names, path,
+                            path + "/" + dir.relativize(file).toString().replace('\\', '/')));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            } else if (root.getProtocol().equals("jar")) {
+                JarURLConnection connection = (JarURLConnection) root.openConnection();
+                connection.setUseCaches(false);
+                try (JarFile jar = connection.getJarFile()) {
+                    for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements(); ) {
+                        addClassName(names, path, e.nextElement().getName());
+                    }
+                }
+            }
+        }
+        List<Class<?>> classes = new ArrayList<>(names.size());
+        for (String name : names) {
+            try {
+                classes.add(Class.forName(name, false, loader));
+            } catch (ClassNotFoundException | LinkageError e) {
+                // Not loadable here (a missing dependency, say); it has no tests we can run
+            }
+        }
+        return classes;
+    }
+
+    private static boolean hasPackage(Set<String> packages, String packageName) {
+        for (String p : packages) {
+            if (p.equals(packageName) || p.startsWith(packageName + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Adds the class name for a resource under path, if it is a class file
+    private static void addClassName(Set<String> names, String path, String entry) {
+        if (entry.startsWith(path + "/") && entry.endsWith(".class") && !entry.endsWith("module-info.class")) {
+            names.add(entry.substring(0, entry.length() - ".class".length()).replace('/', '.'));
+        }
+    }
+
+    private static Path toPath(URL url) throws IOException {
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Bad class path URL: " + url, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "TestRunner(" + (threads > 0 ? "at most " + threads : "unlimited") + " at once, timeout "
+                + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms)";
+    }
+
+    /** One test method, checked and resolved to a MethodHandle. */
+    private static final class TestCase {
+        final String className;
+        final String methodName;
+        final MethodHandle handle;                          // ()void, or null if problem is set
+        final List<Class<? extends Throwable>> expected;    // null for a @Test
+        final String problem;
+
+        TestCase(String className, String methodName, MethodHandle handle,
+                 List<Class<? extends Throwable>> expected, String problem) {
+            this.className = className;
+            this.methodName = methodName;
+            this.handle = handle;
+            this.expected = expected;
+            this.problem = problem;
+        }
+
+        TestResult run(long start) {
+            Throwable thrown = null;
+            try {
+                handle.invokeExact();
+            } catch (Throwable t) {
+                thrown = t;
+            }
+            long nanos = System.nanoTime() - start;
+            if (expected == null) {
+                return thrown == null
+                        ? result(TestResult.Status.PASSED, nanos, null, null)
+                        : result(TestResult.Status.FAILED, nanos, "Threw " + thrown, thrown);
+            }
+            if (thrown == null) {
+                return result(TestResult.Status.FAILED, nanos, "Expected " + names() + ", nothing thrown", null);
+            }
+            for (Class<? extends Throwable> type : expected) {
+                if (type.isInstance(thrown)) {
+                    return result(TestResult.Status.PASSED, nanos, null, thrown);
+                }
+            }
+            return result(TestResult.Status.FAILED, nanos, "Expected " + names() + ", threw " + thrown, thrown);
+        }
+
+        TestResult result(TestResult.Status status, long nanos, String message, Throwable exception) {
+            return new TestResult(className, methodName, status, nanos, message, exception);
+        }
+
+        private String names() {
+            StringBuilder sb = new StringBuilder();
+            for (Class<? extends Throwable> type : expected) {
+                sb.append(sb.length() == 0 ? "" : " or ").append(type.getName());
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.effectivejava.item40.useoverride;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares counting the bigrams of a text with a HashMap<Bigram, Long>
+ * against a BigramCounter, for mostly-ASCII text and for Cyrillic text
+ * (which goes through BigramCounter's hash table).
+ *
+ * Usage: BigramBenchmark [chars] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class BigramBenchmark {
+
+    public static void main(String[] args) {
+        int chars = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 40: Bigram Counting Benchmark ===\n");
+        System.out.println("   " + chars + " chars of text, best of " + (rounds - warmup)
+                + " rounds after " + warmup + " warm-up\n");
+
+        String[] names = { "ASCII text", "Cyrillic text" };
+        String[] texts = {
+            randomText(chars, "abcdefghijklmnopqrstuvwxyz      .,\n", 1),
+            randomText(chars, "абвгдежзийклмнопрстуфхцчшщыэюя     .,\n", 2)
+        };
+        for (int t = 0; t < texts.length; t++) {
+            String text = texts[t];
+            long bestMap = Long.MAX_VALUE;
+            long bestCounter = Long.MAX_VALUE;
+            Map<Bigram, Long> map = null;
+            BigramCounter counter = null;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                map = new HashMap<>();
+                for (int i = 1; i < text.length(); i++) {
+                    map.merge(new Bigram(text.charAt(i - 1), text.charAt(i)), 1L, Long::sum);
+                }
+                long mapNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                counter = new BigramCounter();
+                counter.addText(text);
+                long counterNanos = System.nanoTime() - start;
+
+                if (round >= warmup) {
+                    bestMap = Math.min(bestMap, mapNanos);
+                    bestCounter = Math.min(bestCounter, counterNanos);
+                }
+            }
+            System.out.printf("   %-14s HashMap<Bigram, Long> %7.2f ms  BigramCounter %6.2f ms  %5.1fx  "
+                    + "(distinct %d = %d)%n", names[t], bestMap / 1e6, bestCounter / 1e6,
+                    bestMap / (double) bestCounter, map.size(), counter.distinct());
+        }
+    }
+
+    private static String randomText(int length, String alphabet, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
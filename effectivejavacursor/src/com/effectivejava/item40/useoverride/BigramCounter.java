@@ -0,0 +1,320 @@
+package com.effectivejava.item40.useoverride;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts bigrams - pairs of adjacent chars - without a Bigram object per
+ * pair.
+ *
+ *   BigramCounter counter = new BigramCounter();
+ *   counter.addText("the theme");
+ *   long th = counter.count('t', 'h');   // 2
+ *
+ * A HashSet<Bigram> (or HashMap<Bigram, Long>) spends a node, a Bigram
+ * and equals/hashCode calls on what fits in 32 bits. Here each bigram is
+ * an int, first << 16 | second, and counts live in primitive arrays:
+ * - Both chars ASCII: a direct table of 128 x 128 counts, indexed by the
+ *   pair. Most bigrams in most text land here, with no hashing at all.
+ * - Otherwise: an open-addressing hash table of int keys and long counts,
+ *   probed linearly. No ASCII pair is stored there, so key 0 (a pair of
+ *   NULs) can mark an empty slot.
+ *
+ * FILES: countFile reads a file in blocks, carrying the last char of each
+ * block over to the next, so every adjacent pair in the file - line
+ * breaks included - is counted once. countEach and countAll read many
+ * files in parallel, one file per task.
+ *
+ * A counter is also a set: contains and distinct answer the questions
+ * the HashSet<Bigram> in Bigram.demonstrate does. Not thread-safe.
+ */
+public final class BigramCounter {
+
+    /** Receives a bigram and its count. */
+    @FunctionalInterface
+    public interface BigramConsumer {
+        void accept(char first, char second, long count);
+    }
+
+    private static final int ASCII = 128;
+    private static final int BLOCK = 1 << 16;  // Chars read from a file at a time
+
+    private final long[] ascii = new long[ASCII * ASCII];
+    private int[] keys = new int[16];           // 0 = empty
+    private long[] counts = new long[16];
+    private int used;                           // Occupied slots in keys
+    private long total;
+
+    /** Counts one occurrence of the bigram (first, second). */
+    public void add(char first, char second) {
+        add(first, second, 1);
+    }
+
+    /** Counts n occurrences of the bigram (first, second). */
+    public void add(char first, char second, long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Count must be non-negative: " + n);
+        }
+        if ((first | second) < ASCII) {
+            ascii[first << 7 | second] += n;
+        } else {
+            addHashed(first << 16 | second, n);
+        }
+        total += n;
+    }
+
+    /** Counts every pair of adjacent chars in text. */
+    public void addText(CharSequence text) {
+        int len = text.length();
+        if (len < 2) {
+            return;
+        }
+        char previous = text.charAt(0);
+        for (int i = 1; i < len; i++) {
+            char c = text.charAt(i);
+            countPair(previous, c);
+            previous = c;
+        }
+        total += len - 1;
+    }
+
+    // Counts every pair in chars[0, n), plus (previous, chars[0]) if previous >= 0
+    private void addChars(int previous, char[] chars, int n) {
+        if (previous >= 0) {
+            countPair((char) previous, chars[0]);
+            total++;
+        }
+        for (int i = 1; i < n; i++) {
+            countPair(chars[i - 1], chars[i]);
+        }
+        total += n - 1;
+    }
+
+    private void countPair(char first, char second) {
+        if ((first | second) < ASCII) {
+            ascii[first << 7 | second]++;
+        } else {
+            addHashed(first << 16 | second, 1);
+        }
+    }
+
+    private void addHashed(int key, long n) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (true) {
+            int k = keys[slot];
+            if (k == key) {
+                counts[slot] += n;
+                return;
+            }
+            if (k == 0) {
+                keys[slot] = key;
+                counts[slot] = n;
+                if (++used > keys.length >> 1) {
+                    rehash(keys.length << 1);
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new int[capacity];
+        counts = new long[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int slot = mix(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    // Spreads the key's bits so that runs of nearby code points don't cluster
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Returns how many times the bigram (first, second) was counted. */
+    public long count(char first, char second) {
+        if ((first | second) < ASCII) {
+            return ascii[first << 7 | second];
+        }
+        int key = first << 16 | second;
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+        }
+        return 0;
+    }
+
+    public boolean contains(char first, char second) {
+        return count(first, second) > 0;
+    }
+
+    /** Returns the number of distinct bigrams counted. */
+    public int distinct() {
+        int distinct = 0;
+        for (long c : ascii) {
+            if (c != 0) distinct++;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && counts[i] != 0) distinct++;
+        }
+        return distinct;
+    }
+
+    /** Returns the number of bigrams counted, repeats included. */
+    public long total() {
+        return total;
+    }
+
+    /** Passes every bigram with a non-zero count to action, in no particular order. */
+    public void forEach(BigramConsumer action) {
+        for (int i = 0; i < ascii.length; i++) {
+            if (ascii[i] != 0) {
+                action.accept((char) (i >>> 7), (char) (i & (ASCII - 1)), ascii[i]);
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && counts[i] != 0) {
+                action.accept((char) (keys[i] >>> 16), (char) keys[i], counts[i]);
+            }
+        }
+    }
+
+    /** Adds other's counts to this counter's. */
+    public BigramCounter merge(BigramCounter other) {
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] += other.ascii[i];
+        }
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != 0) {
+                addHashed(other.keys[i], other.counts[i]);
+            }
+        }
+        total += other.total;
+        return this;
+    }
+
+    /**
+     * Returns the n most frequent bigrams, most frequent first, as
+     * two-char strings mapped to their counts. Ties are broken by the
+     * bigrams' char values.
+     */
+    public Map<String, Long> mostFrequent(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must be non-negative: " + n);
+        }
+        int distinct = distinct();
+        int[] bigrams = new int[distinct];
+        long[] tallies = new long[distinct];
+        int[] size = { 0 };
+        forEach((first, second, count) -> {
+            bigrams[size[0]] = first << 16 | second;
+            tallies[size[0]++] = count;
+        });
+        Integer[] order = new Integer[distinct];
+        for (int i = 0; i < distinct; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> tallies[a] != tallies[b]
+                ? Long.compare(tallies[b], tallies[a])
+                : Integer.compareUnsigned(bigrams[a], bigrams[b]));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(n, distinct); i++) {
+            int bigram = bigrams[order[i]];
+            result.put(new String(new char[] { (char) (bigram >>> 16), (char) bigram }), tallies[order[i]]);
+        }
+        return result;
+    }
+
+    /** Returns the approximate memory used by the counts, in bytes. */
+    public long sizeInBytes() {
+        return (long) ascii.length * Long.BYTES + (long) keys.length * (Integer.BYTES + Long.BYTES);
+    }
+
+    /**
+     * Counts the bigrams of a text file, reading it in blocks.
+     *
+     * @throws IOException if the file can't be read or isn't valid in charset
+     */
+    public static BigramCounter countFile(Path file, Charset charset) throws IOException {
+        BigramCounter counter = new BigramCounter();
+        char[] block = new char[BLOCK];
+        int previous = -1;
+        try (Reader reader = Files.newBufferedReader(file, charset)) {
+            int n;
+            while ((n = reader.read(block)) > 0) {
+                counter.addChars(previous, block, n);
+                previous = block[n - 1];
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Counts the bigrams of each file separately, in parallel - one
+     * histogram per document.
+     *
+     * @throws IOException if any file can't be read
+     */
+    public static Map<Path, BigramCounter> countEach(Collection<Path> files, Charset charset) throws IOException {
+        Map<Path, BigramCounter> result = new ConcurrentHashMap<>();
+        try {
+            files.parallelStream().forEach(file -> result.put(file, countFileUnchecked(file, charset)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return result;
+    }
+
+    /**
+     * Counts the bigrams of all the files together, in parallel.
+     *
+     * @throws IOException if any file can't be read
+     */
+    public static BigramCounter countAll(Collection<Path> files, Charset charset) throws IOException {
+        try {
+            return files.parallelStream()
+                    .map(file -> countFileUnchecked(file, charset))
+                    .reduce(BigramCounter::merge)  // Merges into counters no one else holds
+                    .orElseGet(BigramCounter::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static BigramCounter countFileUnchecked(Path file, Charset charset) {
+        try {
+            return countFile(file, charset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BigramCounter(" + distinct() + " distinct, " + total + " total)";
+    }
+}
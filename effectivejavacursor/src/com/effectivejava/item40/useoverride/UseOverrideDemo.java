@@ -27,6 +27,16 @@ public class UseOverrideDemo {
         Bigram.demonstrate();
         System.out.println();
         
+        System.out.println("4. COUNTING MANY BIGRAMS:");
+        System.out.println("   A Bigram object per pair is costly for whole documents;");
+        System.out.println("   BigramCounter packs each pair into an int and counts in arrays");
+        BigramCounter counter = new BigramCounter();
+        counter.addText("the theme of the thesis");
+        System.out.println("   " + counter);
+        System.out.println("   Most frequent: " + counter.mostFrequent(3));
+        System.out.println("   contains('t', 'h'): " + counter.contains('t', 'h'));
+        System.out.println();
+        
         System.out.println("=== Key Takeaways ===");
         System.out.println("1. Use @Override on every overriding method");
         System.out.println("2. Compiler will catch errors if method doesn't override");
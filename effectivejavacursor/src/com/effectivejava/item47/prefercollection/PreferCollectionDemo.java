@@ -1,5 +1,6 @@
 package com.effectivejava.item47.prefercollection;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -34,11 +35,30 @@ public class PreferCollectionDemo {
         System.out.println("   Can check membership: " + sublists.contains(Arrays.asList("a", "b")));
         System.out.println();
         
+        System.out.println("4. A CUSTOM COLLECTION - ELEMENTS COMPUTED ON DEMAND:");
+        System.out.println("   Collection<List<String>> view = SubLists.view(list);");
+        Collection<List<String>> view = SubLists.view(list);
+        System.out.println("   Size without iterating: " + view.size() + "  " + view);
+        System.out.println("   Contains [b, c]: " + view.contains(Arrays.asList("b", "c"))
+                + ", contains [a, c]: " + view.contains(Arrays.asList("a", "c")));
+        Collection<List<String>> powerSet = SubLists.powerSet(list);
+        System.out.println("   SubLists.powerSet(list), " + powerSet.size() + " subsets: " + powerSet);
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            numbers.add(i);
+        }
+        Collection<List<Integer>> all = SubLists.view(numbers);
+        long sized100 = all.parallelStream().filter(s -> s.size() == 100).count();
+        System.out.println("   10,000 numbers: " + all.size() + " sublists, none stored; "
+                + sized100 + " of size 100, counted in parallel");
+        System.out.println();
+        
         System.out.println("=== Key Takeaways ===");
         System.out.println("1. Prefer Collection to Stream as return type");
         System.out.println("2. Collection allows multiple iterations");
         System.out.println("3. Use Stream only for large/infinite sequences");
         System.out.println("4. Consider both Collection and Stream if appropriate");
+        System.out.println("5. A custom collection can be huge yet store nothing, and split evenly for parallel streams");
     }
 }
 
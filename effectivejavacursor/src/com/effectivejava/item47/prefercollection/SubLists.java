@@ -1,6 +1,7 @@
 package com.effectivejava.item47.prefercollection;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -16,11 +17,20 @@ import java.util.stream.Stream;
  * - The sequence is too large to materialize
  * - The sequence is infinite
  * - The sequence is expensive to materialize
+ * 
+ * BEST OF BOTH: a custom collection that computes its elements on demand
+ * (as the book's PowerSet does). view and powerSet return collections
+ * whose elements are found from their position: sublist number r is
+ * worked out from r alone, and subset number r is the bitmask r. Nothing
+ * is stored, so a list of 10,000 elements has 50 million sublists and
+ * they take no memory; size is exact; and the spliterator splits a range
+ * of positions in half, so parallel streams get even shares of the work.
  */
 public class SubLists {
     
     /**
      * Returns Collection - users can iterate multiple times.
+     * Stores every sublist view; see view for a version that doesn't.
      */
     public static <E> Collection<List<E>> of(List<E> list) {
         List<List<E>> result = new ArrayList<>();
@@ -49,5 +59,175 @@ public class SubLists {
         return IntStream.range(0, list.size())
             .mapToObj(start -> list.subList(start, list.size()));
     }
+    
+    /**
+     * Returns every contiguous sublist of list, the empty list included -
+     * n(n+1)/2 + 1 of them - in the order ofStream produces: the empty
+     * list, then by end index, then by start index. The sublists are
+     * views of list, created as they are reached.
+     * 
+     * contains checks whether a list occurs in list, without iterating.
+     */
+    public static <E> Collection<List<E>> view(List<E> list) {
+        int n = list.size();
+        return new RankedCollection<List<E>>((long) n * (n + 1) / 2 + 1) {
+            @Override
+            List<E> get(long rank) {
+                if (rank == 0) {
+                    return Collections.emptyList();
+                }
+                // Sublists ending at end occupy ranks end(end-1)/2 + 1 to end(end+1)/2
+                long k = rank - 1;
+                long end = (long) ((1 + Math.sqrt(1 + 8.0 * k)) / 2);
+                while (end * (end - 1) / 2 > k) end--;       // Correct any rounding
+                while (end * (end + 1) / 2 <= k) end++;
+                long start = k - end * (end - 1) / 2;
+                return list.subList((int) start, (int) end);
+            }
+            
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof List && Collections.indexOfSubList(list, (List<?>) o) >= 0;
+            }
+        };
+    }
+    
+    /**
+     * Returns every subsequence of list - every selection of its
+     * elements, in their order, contiguous or not: 2^n of them. Subset
+     * number r holds the elements whose bits are set in r, so the empty
+     * list comes first and list itself last.
+     * 
+     * @throws IllegalArgumentException if list has more than 62 elements
+     */
+    public static <E> Collection<List<E>> powerSet(List<E> list) {
+        if (list.size() > 62) {
+            throw new IllegalArgumentException("List too big for a power set: " + list.size());
+        }
+        List<E> elements = new ArrayList<>(list);  // Fixed, with fast get
+        return new RankedCollection<List<E>>(1L << elements.size()) {
+            @Override
+            List<E> get(long mask) {
+                int[] indexes = new int[Long.bitCount(mask)];
+                long bits = mask;
+                for (int i = 0; i < indexes.length; i++, bits &= bits - 1) {
+                    indexes[i] = Long.numberOfTrailingZeros(bits);
+                }
+                return new AbstractList<E>() {
+                    @Override
+                    public E get(int index) {
+                        return elements.get(indexes[index]);
+                    }
+                    
+                    @Override
+                    public int size() {
+                        return indexes.length;
+                    }
+                };
+            }
+            
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof List)) {
+                    return false;
+                }
+                // A subsequence can be matched greedily, left to right
+                Iterator<E> it = elements.iterator();
+                outer:
+                for (Object wanted : (List<?>) o) {
+                    while (it.hasNext()) {
+                        if (Objects.equals(it.next(), wanted)) {
+                            continue outer;
+                        }
+                    }
+                    return false;
+                }
+                return true;
+            }
+        };
+    }
+    
+    /**
+     * An unmodifiable collection whose elements are computed from their
+     * position, 0 to count - 1.
+     */
+    private abstract static class RankedCollection<T> extends AbstractCollection<T> {
+        private final long count;
+        
+        RankedCollection(long count) {
+            this.count = count;
+        }
+        
+        abstract T get(long rank);
+        
+        /** Returns the exact size, or Integer.MAX_VALUE if it is larger. */
+        @Override
+        public int size() {
+            return (int) Math.min(count, Integer.MAX_VALUE);
+        }
+        
+        @Override
+        public boolean isEmpty() {
+            return count == 0;
+        }
+        
+        @Override
+        public Iterator<T> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+        
+        @Override
+        public Spliterator<T> spliterator() {
+            return new RankSpliterator(0, count);
+        }
+        
+        private final class RankSpliterator implements Spliterator<T> {
+            private long next;
+            private final long end;
+            
+            RankSpliterator(long next, long end) {
+                this.next = next;
+                this.end = end;
+            }
+            
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (next >= end) {
+                    return false;
+                }
+                action.accept(get(next++));
+                return true;
+            }
+            
+            @Override
+            public void forEachRemaining(Consumer<? super T> action) {
+                for (long r = next; r < end; r++) {
+                    action.accept(get(r));
+                }
+                next = end;
+            }
+            
+            // Halves the remaining positions: every element costs the same to compute
+            @Override
+            public Spliterator<T> trySplit() {
+                long mid = next + (end - next) / 2;
+                if (mid <= next) {
+                    return null;
+                }
+                Spliterator<T> prefix = new RankSpliterator(next, mid);
+                next = mid;
+                return prefix;
+            }
+            
+            @Override
+            public long estimateSize() {
+                return end - next;
+            }
+            
+            @Override
+            public int characteristics() {
+                return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+            }
+        }
+    }
 }
-
@@ -0,0 +1,73 @@
+package com.effectivejava.item47.prefercollection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compares three ways of enumerating every contiguous sublist of a list
+ * to total their sizes: SubLists.of (every sublist stored in an
+ * ArrayList), SubLists.ofStream (nested flatMap) and SubLists.view,
+ * sequentially and in parallel.
+ *
+ * Usage: SubListsBenchmark [size] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported.
+ */
+public class SubListsBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 47: Sublist Enumeration Benchmark ===\n");
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        System.out.println("   " + size + " elements, " + SubLists.view(list).size() + " sublists, best of "
+                + (rounds - warmup) + " rounds after " + warmup + " warm-up\n");
+
+        String[] names = { "SubLists.of", "ofStream", "ofStream parallel", "view", "view parallel" };
+        long[] best = new long[names.length];
+        long[] totals = new long[names.length];
+        Arrays.fill(best, Long.MAX_VALUE);
+        for (int round = 0; round < rounds; round++) {
+            for (int m = 0; m < names.length; m++) {
+                long start = System.nanoTime();
+                totals[m] = totalSize(m, list);
+                long nanos = System.nanoTime() - start;
+                if (round >= warmup) {
+                    best[m] = Math.min(best[m], nanos);
+                }
+            }
+        }
+        for (int m = 0; m < names.length; m++) {
+            System.out.printf("   %-18s %8.2f ms  %5.1fx  (total size %d)%n",
+                    names[m], best[m] / 1e6, best[0] / (double) best[m], totals[m]);
+        }
+    }
+
+    private static long totalSize(int method, List<Integer> list) {
+        switch (method) {
+            case 0:
+                Collection<List<Integer>> all = SubLists.of(list);
+                long total = 0;
+                for (List<Integer> sublist : all) {
+                    total += sublist.size();
+                }
+                return total;
+            case 1:
+                return SubLists.ofStream(list).mapToLong(List::size).sum();
+            case 2:
+                return SubLists.ofStream(list).parallel().mapToLong(List::size).sum();
+            case 3:
+                return SubLists.view(list).stream().mapToLong(List::size).sum();
+            default:
+                return SubLists.view(list).parallelStream().mapToLong(List::size).sum();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.effectivejava.item65.preferinterfaces;
 
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Demonstration of Item 65: Prefer interfaces to reflection.
@@ -36,11 +37,22 @@ public class PreferInterfacesToReflectionDemo {
         System.out.println("   (Type-safe, no reflection needed)");
         System.out.println();
         
+        System.out.println("5. WHEN A FRAMEWORK MUST REFLECT, DO IT ONCE:");
+        @SuppressWarnings("rawtypes")  // Set.class is a raw type
+        Supplier<Set> factory = ReflectionExample.Framework.factory("java.util.TreeSet", Set.class);
+        Set<String> cached = ReflectionExample.createSetCached("java.util.TreeSet");
+        System.out.println("   factory(\"java.util.TreeSet\", Set.class).get() -> "
+                + factory.get().getClass().getSimpleName());
+        System.out.println("   createSetCached(\"java.util.TreeSet\") -> " + cached.getClass().getSimpleName());
+        System.out.println("   (Class lookup once per name; each get() is a plain 'new')");
+        System.out.println();
+        
         System.out.println("=== Key Takeaways ===");
         System.out.println("1. Prefer interfaces to reflection");
         System.out.println("2. Reflection loses compile-time safety");
         System.out.println("3. Use reflection only when necessary");
         System.out.println("4. Frameworks may require reflection");
+        System.out.println("5. Confine reflection to setup; cache what it produces");
     }
 }
 
@@ -0,0 +1,79 @@
+package com.effectivejava.item65.preferinterfaces;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Compares four ways to create a java.util.HashSet many times:
+ * 1. Direct      - new HashSet<>()
+ * 2. Reflective  - Framework.createInstance (forName + getDeclaredConstructor each call)
+ * 3. Cached      - Framework.createInstanceCached (map lookup + generated Supplier)
+ * 4. Supplier    - the Supplier from Framework.factory, held by the caller
+ *
+ * Usage: ReflectionBenchmark [instances] [rounds]
+ *
+ * NOTE: A main()-based benchmark, not a JMH one: the first half of the
+ * rounds are warm-up and the best of the rest is reported. Instances are
+ * stored to an array so the allocation can't be optimized away.
+ */
+public class ReflectionBenchmark {
+
+    private static final String CLASS_NAME = "java.util.HashSet";
+    private static final int SLOTS = 1024;
+
+    public static void main(String[] args) {
+        int instances = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = rounds / 2;
+
+        System.out.println("=== Item 65: Reflective Instantiation Benchmark ===\n");
+        System.out.println("   " + instances + " instances of " + CLASS_NAME + ", best of "
+                + (rounds - warmup) + " rounds after " + warmup + " warm-up\n");
+
+        @SuppressWarnings("rawtypes")
+        Supplier<Set> supplier = ReflectionExample.Framework.factory(CLASS_NAME, Set.class);
+        String[] names = { "Direct new", "Reflective", "Cached", "Supplier" };
+        long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        Object[] sink = new Object[SLOTS];
+        for (int round = 0; round < rounds; round++) {
+            long[] nanos = new long[names.length];
+
+            long start = System.nanoTime();
+            for (int i = 0; i < instances; i++) {
+                sink[i & (SLOTS - 1)] = new HashSet<String>();
+            }
+            nanos[0] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < instances; i++) {
+                sink[i & (SLOTS - 1)] = ReflectionExample.Framework.createInstance(CLASS_NAME, Set.class);
+            }
+            nanos[1] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < instances; i++) {
+                sink[i & (SLOTS - 1)] = ReflectionExample.Framework.createInstanceCached(CLASS_NAME, Set.class);
+            }
+            nanos[2] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < instances; i++) {
+                sink[i & (SLOTS - 1)] = supplier.get();
+            }
+            nanos[3] = System.nanoTime() - start;
+
+            if (round >= warmup) {
+                for (int m = 0; m < names.length; m++) {
+                    best[m] = Math.min(best[m], nanos[m]);
+                }
+            }
+        }
+
+        for (int m = 0; m < names.length; m++) {
+            System.out.printf("   %-12s %7.1f ns/instance  %5.1fx direct%n", names[m],
+                    best[m] / (double) instances, best[m] / (double) best[0]);
+        }
+        System.out.println("   (last instance: " + sink[(instances - 1) & (SLOTS - 1)].getClass().getName() + ")");
+    }
+}
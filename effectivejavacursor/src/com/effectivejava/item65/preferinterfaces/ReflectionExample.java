@@ -1,7 +1,16 @@
 package com.effectivejava.item65.preferinterfaces;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 /**
  * Item 65: Prefer interfaces to reflection.
@@ -36,6 +45,19 @@ public class ReflectionExample {
         }
     }
     
+    /**
+     * createSetBad with the reflection done once per class name: later
+     * calls with the same name cost about as much as a direct new. Same
+     * contract - throws IllegalArgumentException if the class can't be
+     * instantiated as a Set - except that an exception thrown by the
+     * constructor itself propagates unwrapped, as it would from new.
+     */
+    public static Set<String> createSetCached(String className) {
+        @SuppressWarnings("unchecked")  // As in createSetBad, the element type can't be checked
+        Set<String> set = Framework.createInstanceCached(className, Set.class);
+        return set;
+    }
+    
     /**
      * GOOD: Using interface and factory.
      * Type-safe and clear.
@@ -53,8 +75,19 @@ public class ReflectionExample {
     
     /**
      * When reflection is appropriate: Framework code.
+     * 
+     * createInstance repeats the whole lookup - Class.forName,
+     * getDeclaredConstructor, an access check - on every call. A framework
+     * that instantiates a configured class per message should use
+     * factory (or createInstanceCached), which does the reflection once
+     * per class name and returns a Supplier as fast as a lambda written
+     * by hand: LambdaMetafactory spins a class whose get() is a plain
+     * "new C()". Reflection is confined to setup, as Item 65 recommends.
      */
     public static class Framework {
+        // Class name -> Supplier of new instances; entries live as long as the framework
+        private static final ConcurrentMap<String, Factory> FACTORIES = new ConcurrentHashMap<>();
+        
         /**
          * Framework might need reflection to instantiate classes
          * based on configuration. This is acceptable for frameworks.
@@ -72,6 +105,89 @@ public class ReflectionExample {
                 throw new IllegalArgumentException("Cannot instantiate " + className, e);
             }
         }
+        
+        /**
+         * Returns a Supplier of new instances of the named class, through
+         * its no-argument constructor. The class is looked up once; the
+         * Supplier is cached and shared by later calls. Exceptions thrown
+         * by the constructor propagate from get() unwrapped, as from new.
+         *
+         * @throws IllegalArgumentException if the class can't be found or
+         *         instantiated, is not a subtype of type, or its constructor
+         *         declares checked exceptions, which Supplier.get can't throw
+         */
+        public static <T> Supplier<T> factory(String className, Class<T> type) {
+            Factory factory = FACTORIES.get(className);
+            if (factory == null) {
+                factory = FACTORIES.computeIfAbsent(className, Factory::new);
+            }
+            if (!type.isAssignableFrom(factory.type)) {
+                throw new IllegalArgumentException(className + " is not a " + type);
+            }
+            @SuppressWarnings("unchecked")  // Checked above: instances are Ts
+            Supplier<T> supplier = (Supplier<T>) factory.supplier;
+            return supplier;
+        }
+        
+        /** createInstance through the cached factory. */
+        public static <T> T createInstanceCached(String className, Class<T> type) {
+            return factory(className, type).get();
+        }
+        
+        private static final class Factory {
+            final Class<?> type;
+            final Supplier<?> supplier;
+            
+            Factory(String className) {
+                try {
+                    type = Class.forName(className);
+                    if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+                        throw new IllegalArgumentException(className + " is abstract");
+                    }
+                    supplier = supplierFor(type);
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    throw new IllegalArgumentException("Cannot instantiate " + className, e);
+                }
+            }
+        }
+        
+        private static Supplier<?> supplierFor(Class<?> type) throws ReflectiveOperationException {
+            Constructor<?> cons = type.getDeclaredConstructor();
+            for (Class<?> exception : cons.getExceptionTypes()) {
+                if (!RuntimeException.class.isAssignableFrom(exception) && !Error.class.isAssignableFrom(exception)) {
+                    throw new IllegalArgumentException("Constructor of " + type.getName()
+                            + " declares checked " + exception.getName());
+                }
+            }
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle constructor;
+            try {
+                constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            } catch (IllegalAccessException inaccessible) {
+                // Not accessible from here (a private constructor, say): as
+                // getDeclaredConstructor().newInstance() would, break in -
+                // then call through the handle, without a generated class
+                cons.setAccessible(true);
+                MethodHandle handle = lookup.unreflectConstructor(cons).asType(MethodType.methodType(Object.class));
+                return () -> {
+                    try {
+                        return handle.invokeExact();
+                    } catch (RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable t) {
+                        // Checked exceptions were rejected above, so this needs an undeclared one
+                        throw new IllegalStateException("Constructor of " + type.getName() + " threw", t);
+                    }
+                };
+            }
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                        MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                        constructor, MethodType.methodType(type));
+                return (Supplier<?>) site.getTarget().invokeExact();
+            } catch (Throwable t) {
+                throw new IllegalStateException("Cannot generate a factory for " + type.getName(), t);
+            }
+        }
     }
 }
-
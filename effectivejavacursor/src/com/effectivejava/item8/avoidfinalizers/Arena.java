@@ -0,0 +1,238 @@
+package com.effectivejava.item8.avoidfinalizers;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Item 8: Avoid finalizers and cleaners.
+ *
+ * A scoped arena that owns many resources and releases them all at once:
+ *
+ *   try (Arena arena = Arena.open()) {
+ *       ByteBuffer buf = arena.allocate(64);
+ *       Room room = new Room(101, arena);
+ *       ...
+ *   }  // Every cleanup action registered in the arena runs here
+ *
+ * WHY:
+ * - Registering every object with a Cleaner creates a PhantomReference per
+ *   object, and a single cleaner thread has to process all of them
+ * - An arena registers ONE Cleaner action, for the arena itself, as a
+ *   safety net in case close() is never called
+ * - Off-heap memory is carved from shared direct-buffer slabs, so a small
+ *   allocation costs a slice, not a separate native allocation
+ *
+ * Resources are released in reverse order of registration, like
+ * try-with-resources. A resource cleaned early (Room.close) is dropped
+ * from the arena at once, so a long-lived arena doesn't accumulate the
+ * registrations of short-lived resources.
+ *
+ * MEMORY: close() does NOT free off-heap memory. A direct ByteBuffer
+ * can't be freed explicitly with standard APIs in Java 21, and freeing
+ * it while a slice is still reachable would let the slice read freed
+ * memory. close() drops the arena's references to its slabs and stops
+ * counting them in liveBytes; the memory is returned when the slabs and
+ * every slice of them become unreachable and the GC runs - the same
+ * timing as any direct buffer.
+ *
+ * THREAD SAFETY: an arena may be shared between threads; allocation and
+ * registration synchronize on the arena. The live counters are global and
+ * thread-safe.
+ */
+public final class Arena implements AutoCloseable {
+
+    // Small allocations are sliced from slabs of this size; allocations of
+    // a quarter slab or more get their own buffer
+    static final int SLAB_SIZE = 1 << 20;  // 1 MiB
+
+    private static final Cleaner cleaner = Cleaner.create();
+
+    private static final LongAdder liveResources = new LongAdder();
+    private static final LongAdder liveBytes = new LongAdder();
+
+    // Everything the arena owns. Must not refer to the Arena, or the
+    // Cleaner could never run. Guarded by its own lock, since rooms may be
+    // closed early on any thread.
+    private static class State implements Runnable {
+        // Insertion-ordered, with constant-time removal on early clean
+        final LinkedHashSet<Registration> registrations = new LinkedHashSet<>();
+        final List<ByteBuffer> slabs = new ArrayList<>();
+        long bytes;
+
+        @Override
+        public void run() {
+            List<Registration> remaining;
+            long freed;
+            synchronized (this) {
+                remaining = new ArrayList<>(registrations.reversed());
+                registrations.clear();
+                slabs.clear();  // Memory is returned when no slab or slice is reachable
+                freed = bytes;
+                bytes = 0;
+            }
+            liveBytes.add(-freed);
+            RuntimeException failure = null;
+            for (Registration r : remaining) {
+                try {
+                    r.clean();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private final State state = new State();
+    private final Cleaner.Cleanable cleanable;
+    private ByteBuffer currentSlab;
+    private boolean closed;
+
+    private Arena() {
+        this.cleanable = cleaner.register(this, state);
+    }
+
+    /**
+     * Opens a new arena. Use it with try-with-resources.
+     */
+    public static Arena open() {
+        return new Arena();
+    }
+
+    /**
+     * Allocates zeroed off-heap memory owned by this arena. Small
+     * allocations are slices of a shared slab. The memory stays valid as
+     * long as the buffer is reachable, even after the arena closes.
+     *
+     * @throws IllegalArgumentException if bytes is negative
+     * @throws IllegalStateException if the arena is closed
+     */
+    public synchronized ByteBuffer allocate(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Negative size: " + bytes);
+        }
+        checkOpen();
+        ByteBuffer result;
+        if (bytes >= SLAB_SIZE / 4) {
+            result = newSlab(bytes);
+        } else {
+            if (currentSlab == null || currentSlab.remaining() < bytes) {
+                currentSlab = newSlab(SLAB_SIZE);
+            }
+            int start = currentSlab.position();
+            result = currentSlab.slice(start, bytes);
+            currentSlab.position(start + bytes);
+        }
+        return result;
+    }
+
+    /**
+     * Registers a cleanup action to run when the arena closes. The returned
+     * Cleanable may be used to run it earlier; it runs at most once.
+     *
+     * @throws IllegalStateException if the arena is closed
+     */
+    public synchronized Cleaner.Cleanable register(Runnable action) {
+        checkOpen();
+        Registration r = new Registration(state, action);
+        synchronized (state) {
+            state.registrations.add(r);
+        }
+        liveResources.increment();
+        return r;
+    }
+
+    /**
+     * Registers an AutoCloseable to be closed when the arena closes.
+     * Checked exceptions from close() are wrapped in IllegalStateException.
+     *
+     * @return resource, for convenient chaining
+     * @throws IllegalStateException if the arena is closed
+     */
+    public <T extends AutoCloseable> T own(T resource) {
+        register(() -> {
+            try {
+                resource.close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to close " + resource, e);
+            }
+        });
+        return resource;
+    }
+
+    /**
+     * Runs the cleanup actions still registered, in reverse order of
+     * registration, and releases the arena's slabs to the GC. Idempotent.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        currentSlab = null;
+        cleanable.clean();
+    }
+
+    /** Returns the number of registered resources not yet released, across all arenas. */
+    public static long liveResources() {
+        return liveResources.sum();
+    }
+
+    /**
+     * Returns the number of off-heap bytes allocated by arenas that are
+     * still open. Memory of closed arenas that the GC has not yet
+     * reclaimed is not counted.
+     */
+    public static long liveBytes() {
+        return liveBytes.sum();
+    }
+
+    private ByteBuffer newSlab(int bytes) {
+        ByteBuffer slab = ByteBuffer.allocateDirect(bytes);
+        synchronized (state) {
+            state.slabs.add(slab);
+            state.bytes += bytes;
+        }
+        liveBytes.add(bytes);
+        return slab;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Arena is closed");
+        }
+    }
+
+    private static final class Registration implements Cleaner.Cleanable {
+        private final State owner;
+        private final Runnable action;
+        private final AtomicBoolean cleaned = new AtomicBoolean();
+
+        Registration(State owner, Runnable action) {
+            this.owner = owner;
+            this.action = action;
+        }
+
+        @Override
+        public void clean() {
+            if (cleaned.compareAndSet(false, true)) {
+                synchronized (owner) {
+                    owner.registrations.remove(this);  // No-op if the arena is closing
+                }
+                liveResources.decrement();
+                action.run();
+            }
+        }
+    }
+}
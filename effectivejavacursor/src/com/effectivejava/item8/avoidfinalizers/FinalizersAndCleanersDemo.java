@@ -8,6 +8,7 @@ package com.effectivejava.item8.avoidfinalizers;
  * 2. Problems with cleaners
  * 3. Preferred approach: explicit cleanup with AutoCloseable
  * 4. Finalizer attacks
+ * 5. Arenas: one Cleaner for many resources
  */
 public class FinalizersAndCleanersDemo {
     
@@ -58,6 +59,23 @@ public class FinalizersAndCleanersDemo {
         System.out.println("   Solution: Make finalize() final and throw exception");
         System.out.println();
         
+        // Arena
+        System.out.println("6. ARENAS: ONE CLEANER FOR MANY RESOURCES:");
+        System.out.println("   A Cleaner per object means a PhantomReference per object");
+        System.out.println("   An arena owns many resources and cleans them up together");
+        try (Arena arena = Arena.open()) {
+            new Room(301, arena);
+            new Room(302, arena);
+            new Room(303, arena).close();  // Closed early: dropped from the arena now
+            arena.allocate(64);
+            System.out.println("   Live arena resources: " + Arena.liveResources()
+                    + ", off-heap bytes: " + Arena.liveBytes());
+        }
+        System.out.println("   After close - live resources: " + Arena.liveResources()
+                + ", rooms: " + Room.getNumRooms());
+        System.out.println("   (The slab is returned by the GC once unreachable - close can't free it)");
+        System.out.println();
+        
         System.out.println("=== Key Takeaways ===");
         System.out.println("1. NEVER use finalizers - they are deprecated");
         System.out.println("2. Avoid cleaners - they are unpredictable");
@@ -1,5 +1,7 @@
 package com.effectivejava.item8.avoidfinalizers;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Item 8: Avoid finalizers and cleaners.
  * 
@@ -22,10 +24,13 @@ package com.effectivejava.item8.avoidfinalizers;
  * - Implement AutoCloseable interface
  * - Use try-with-resources
  * - Explicit cleanup is better than implicit
+ * - For many short-lived objects, register them with an Arena instead
+ *   of one Cleaner each
  */
 public class Room implements AutoCloseable {
     
-    private static int numRooms = 0;
+    // Thread-safe: rooms may be created and closed on any thread
+    private static final AtomicInteger numRooms = new AtomicInteger();
     private final int roomNumber;
     
     // Cleaner - BAD approach (shown for illustration)
@@ -42,7 +47,8 @@ public class Room implements AutoCloseable {
         
         @Override
         public void run() {
-            System.out.println("Cleaning room " + roomNum + " (via Cleaner)");
+            System.out.println("Cleaning room " + roomNum);
+            numRooms.decrementAndGet();
             // Cleanup logic here
         }
     }
@@ -54,8 +60,19 @@ public class Room implements AutoCloseable {
         this.roomNumber = roomNumber;
         this.state = new State(roomNumber);
         this.cleanable = cleaner.register(this, state);
-        numRooms++;
-        System.out.println("Room " + roomNumber + " created. Total rooms: " + numRooms);
+        System.out.println("Room " + roomNumber + " created. Total rooms: " + numRooms.incrementAndGet());
+    }
+    
+    /**
+     * Creates a room owned by an arena. No Cleaner registration - the room
+     * is cleaned when it is closed or when the arena closes, whichever
+     * comes first.
+     */
+    public Room(int roomNumber, Arena arena) {
+        this.roomNumber = roomNumber;
+        this.state = new State(roomNumber);
+        this.cleanable = arena.register(state);
+        System.out.println("Room " + roomNumber + " created in arena. Total rooms: " + numRooms.incrementAndGet());
     }
     
     /**
@@ -64,15 +81,18 @@ public class Room implements AutoCloseable {
      */
     @Override
     public void close() {
-        cleanable.clean();  // Clean up immediately
-        numRooms--;
-        System.out.println("Room " + roomNumber + " closed explicitly. Remaining rooms: " + numRooms);
+        cleanable.clean();  // Clean up immediately (runs at most once)
+        System.out.println("Room " + roomNumber + " closed explicitly. Remaining rooms: " + numRooms.get());
     }
     
     public int getRoomNumber() {
         return roomNumber;
     }
     
+    public static int getNumRooms() {
+        return numRooms.get();
+    }
+    
     /**
      * BAD: Finalizer - DO NOT USE!
      * This is shown for illustration only.
@@ -0,0 +1,99 @@
+package com.effectivejava.item9.trywithresources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Benchmark for Item 9 copy strategies.
+ *
+ * Compares, for file sizes from 4 KiB up to a maximum (default 256 MiB):
+ * 1. CopyFile.copyGood - heap byte[] stream loop
+ * 2. FileCopyEngine.copy - transferTo (zero-copy)
+ * 3. FileCopyEngine.copyWithDirectBuffer - direct ByteBuffer loop
+ *
+ * Usage: FileCopyBenchmark [maxSize] [workDir]
+ *   maxSize accepts K/M/G suffixes, e.g. 10G for the full 4 KiB - 10 GiB sweep.
+ *   workDir defaults to the system temp directory; use a real disk for
+ *   meaningful numbers (tmpfs mostly measures memcpy).
+ *
+ * NOTE: Measure on the target machine. The page cache makes repeated copies
+ * of small files look much faster than cold copies.
+ */
+public class FileCopyBenchmark {
+
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws IOException {
+        long maxSize = args.length > 0 ? parseSize(args[0]) : 256L << 20;
+        Path dir = args.length > 1 ? Path.of(args[1]) : Path.of(System.getProperty("java.io.tmpdir"));
+
+        System.out.println("=== Item 9: File Copy Benchmark ===\n");
+        System.out.printf("%10s %14s %14s %14s%n", "Size", "byte[] MB/s", "transferTo", "direct buf");
+
+        Path src = Files.createTempFile(dir, "copybench-src", ".bin");
+        Path dst = Files.createTempFile(dir, "copybench-dst", ".bin");
+        try {
+            for (long size = Math.min(4L << 10, maxSize); size > 0; size = nextSize(size, maxSize)) {
+                writeRandomFile(src, size);
+                int bufferSize = FileCopyEngine.bufferSizeFor(size);
+
+                double streams = measure(size, () -> CopyFile.copyGood(src.toString(), dst.toString()));
+                double transfer = measure(size, () -> FileCopyEngine.copy(src, dst));
+                double direct = measure(size, () -> FileCopyEngine.copyWithDirectBuffer(src, dst, bufferSize));
+
+                System.out.printf("%10s %14.1f %14.1f %14.1f%n", formatSize(size), streams, transfer, direct);
+            }
+        } finally {
+            Files.deleteIfExists(src);
+            Files.deleteIfExists(dst);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CopyAction {
+        void run() throws IOException;
+    }
+
+    // Best-of-RUNS throughput in MB/s, after one warm-up run
+    private static double measure(long size, CopyAction action) throws IOException {
+        action.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            action.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (size / 1e6) / (Math.max(best, 1) / 1e9);
+    }
+
+    private static void writeRandomFile(Path file, long size) throws IOException {
+        byte[] chunk = new byte[1 << 20];
+        new Random(42).nextBytes(chunk);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += chunk.length) {
+                out.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+            }
+        }
+    }
+
+    // 4 KiB, 16 KiB, ... growing by 4x, always ending exactly at maxSize
+    private static long nextSize(long size, long maxSize) {
+        return size >= maxSize ? -1 : Math.min(size * 4, maxSize);
+    }
+
+    private static long parseSize(String s) {
+        char unit = Character.toUpperCase(s.charAt(s.length() - 1));
+        int shift = unit == 'K' ? 10 : unit == 'M' ? 20 : unit == 'G' ? 30 : 0;
+        String digits = shift == 0 ? s : s.substring(0, s.length() - 1);
+        return Long.parseLong(digits) << shift;
+    }
+
+    private static String formatSize(long size) {
+        if (size >= 1L << 30) return (size >> 30) + " GiB";
+        if (size >= 1L << 20) return (size >> 20) + " MiB";
+        return (size >> 10) + " KiB";
+    }
+}
@@ -0,0 +1,423 @@
+package com.effectivejava.item9.trywithresources;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Item 9: Prefer try-with-resources to try-finally.
+ *
+ * A parallel file and directory copier. The copier owns a bounded thread
+ * pool, so it is itself an AutoCloseable resource:
+ *
+ *   try (ParallelFileCopier copier = new ParallelFileCopier.Builder().threads(8).build()) {
+ *       copier.copyTree(srcDir, dstDir);
+ *   }
+ *
+ * LARGE FILES:
+ * - Split into fixed-size chunks
+ * - Each chunk is read with positional FileChannel.read(buf, pos) and
+ *   written with positional FileChannel.write(buf, pos), so workers share
+ *   the two channels without sharing a file position
+ * - Each worker copies through its own 4 MiB direct buffer, reused for
+ *   every chunk, so direct memory stays at threads x 4 MiB however large
+ *   the chunks are
+ *
+ * OPTIONS:
+ * - Progress callbacks per file
+ * - Checksum verification: each chunk is read back and compared (CRC32C)
+ * - Resumable copies: finished chunks are recorded in a journal file next
+ *   to the destination; an interrupted copy skips them on the next run.
+ *   The journal survives a process crash, not a power loss (no fsync).
+ *
+ * Small files in a tree are copied whole with FileCopyEngine.
+ */
+public final class ParallelFileCopier implements AutoCloseable {
+
+    /**
+     * Receives progress for a single file. May be called concurrently
+     * from worker threads.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(Path file, long bytesCopied, long totalBytes);
+    }
+
+    static final String JOURNAL_SUFFIX = ".copyjournal";
+
+    private static final int BUFFER_SIZE = 4 << 20;  // 4 MiB per worker, whatever the chunk size
+
+    // One direct buffer per worker thread, reused for every chunk it copies
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final int threads;
+    private final int chunkSize;
+    private final boolean verify;
+    private final boolean resumable;
+    private final ProgressListener listener;
+    private final ExecutorService executor;
+
+    public static class Builder {
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int chunkSize = 64 << 20;  // 64 MiB
+        private boolean verify = false;
+        private boolean resumable = false;
+        private ProgressListener listener = (file, copied, total) -> { };
+
+        public Builder threads(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("Thread count must be positive: " + val);
+            }
+            threads = val;
+            return this;
+        }
+
+        public Builder chunkSize(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("Chunk size must be positive: " + val);
+            }
+            chunkSize = val;
+            return this;
+        }
+
+        public Builder verify(boolean val) {
+            verify = val;
+            return this;
+        }
+
+        public Builder resumable(boolean val) {
+            resumable = val;
+            return this;
+        }
+
+        public Builder progressListener(ProgressListener val) {
+            listener = Objects.requireNonNull(val);
+            return this;
+        }
+
+        public ParallelFileCopier build() {
+            return new ParallelFileCopier(this);
+        }
+    }
+
+    private ParallelFileCopier(Builder builder) {
+        threads = builder.threads;
+        chunkSize = builder.chunkSize;
+        verify = builder.verify;
+        resumable = builder.resumable;
+        listener = builder.listener;
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Copies a single file, splitting it into chunks copied in parallel.
+     * Blocks until the copy is complete.
+     *
+     * @return the number of bytes copied by this call (resumed chunks excluded)
+     * @throws IOException if the copy or the verification fails
+     */
+    public long copyFile(Path src, Path dst) throws IOException {
+        long size = Files.size(src);
+        int chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+        Path journalFile = journalFor(dst);
+        BitSet done = resumable ? readJournal(journalFile, size) : new BitSet();
+        boolean resuming = !done.isEmpty() && Files.exists(dst);
+
+        long result;
+        try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+             FileChannel out = resuming
+                     ? FileChannel.open(dst, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                     : FileChannel.open(dst, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                             StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+             Journal journal = resumable ? Journal.open(journalFile, size, chunkSize, resuming) : null) {
+
+            AtomicLong copied = new AtomicLong();
+            long alreadyDone = resuming ? (long) done.cardinality() * chunkSize : 0;
+            List<Future<?>> futures = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                if (resuming && done.get(i)) {
+                    continue;
+                }
+                int chunk = i;
+                futures.add(executor.submit(() -> {
+                    long n = copyChunk(in, out, chunk, size);
+                    if (journal != null) {
+                        journal.markDone(chunk);
+                    }
+                    long total = copied.addAndGet(n);
+                    listener.onProgress(dst, Math.min(alreadyDone + total, size), size);
+                    return null;
+                }));
+            }
+            awaitAll(futures);
+            out.truncate(size);  // In case a stale destination was longer
+            if (size == 0) {
+                listener.onProgress(dst, 0, 0);
+            }
+            result = copied.get();
+        }
+        if (resumable) {
+            Files.deleteIfExists(journalFile);  // Closed above; the copy is complete
+        }
+        return result;
+    }
+
+    /**
+     * Copies a directory tree. Directories are created on the caller's
+     * thread; files are copied on the pool. At most twice the thread count
+     * of small-file copies are queued at any time.
+     *
+     * @return the number of files copied
+     * @throws IOException if any file fails to copy
+     */
+    public int copyTree(Path srcDir, Path dstDir) throws IOException {
+        Semaphore inFlight = new Semaphore(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        int files = 0;
+        try (Stream<Path> paths = Files.walk(srcDir)) {
+            for (Path src : (Iterable<Path>) paths::iterator) {
+                Path dst = dstDir.resolve(srcDir.relativize(src).toString());
+                if (Files.isDirectory(src)) {
+                    Files.createDirectories(dst);
+                } else if (Files.size(src) > chunkSize) {
+                    copyFile(src, dst);  // Chunks go to the pool; we wait here
+                    files++;
+                } else {
+                    acquire(inFlight);
+                    futures.add(executor.submit(() -> {
+                        try {
+                            copySmallFile(src, dst);
+                        } finally {
+                            inFlight.release();
+                        }
+                        return null;
+                    }));
+                    files++;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();  // From Files.walk iteration
+        }
+        awaitAll(futures);
+        return files;
+    }
+
+    /**
+     * Shuts down the worker pool. Copies in progress are allowed to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private void copySmallFile(Path src, Path dst) throws IOException {
+        long size = FileCopyEngine.copy(src, dst);
+        if (verify && checksum(src) != checksum(dst)) {
+            throw new IOException("Checksum mismatch copying " + src + " to " + dst);
+        }
+        listener.onProgress(dst, size, size);
+    }
+
+    // Copies one chunk through the worker's buffer, a buffer's worth at a time
+    private long copyChunk(FileChannel in, FileChannel out, int chunk, long size) throws IOException {
+        long start = (long) chunk * chunkSize;
+        int length = (int) Math.min(chunkSize, size - start);
+        ByteBuffer buf = BUFFER.get();
+        CRC32C expected = verify ? new CRC32C() : null;
+
+        for (long pos = start, end = start + length; pos < end; ) {
+            buf.clear().limit((int) Math.min(buf.capacity(), end - pos));
+            while (buf.hasRemaining()) {
+                if (in.read(buf, pos + buf.position()) < 0) {
+                    throw new IOException("Source shrank during copy at offset " + (pos + buf.position()));
+                }
+            }
+            buf.flip();
+            if (verify) {
+                expected.update(buf.duplicate());
+            }
+            while (buf.hasRemaining()) {
+                out.write(buf, pos + buf.position());
+            }
+            pos += buf.limit();
+        }
+
+        if (verify) {
+            CRC32C actual = new CRC32C();
+            for (long pos = start, end = start + length; pos < end; ) {
+                buf.clear().limit((int) Math.min(buf.capacity(), end - pos));
+                while (buf.hasRemaining() && out.read(buf, pos + buf.position()) >= 0) {
+                    // Read back what we just wrote
+                }
+                buf.flip();
+                if (!buf.hasRemaining()) {
+                    break;  // Destination is shorter than what we wrote
+                }
+                actual.update(buf);
+                pos += buf.limit();
+            }
+            if (actual.getValue() != expected.getValue()) {
+                throw new IOException("Checksum mismatch in chunk " + chunk + " at offset " + start);
+            }
+        }
+        return length;
+    }
+
+    private static long checksum(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(FileCopyEngine.bufferSizeFor(ch.size()));
+            while (ch.read(buf) >= 0) {
+                buf.flip();
+                crc.update(buf);
+                buf.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void acquire(Semaphore semaphore) throws IOException {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while copying", e);
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> futures) throws IOException {
+        IOException failure = null;
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(g -> g.cancel(true));
+                throw new IOException("Interrupted while copying", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                IOException ioe = cause instanceof IOException
+                        ? (IOException) cause : new IOException(cause);
+                if (failure == null) {
+                    failure = ioe;
+                } else {
+                    failure.addSuppressed(ioe);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    static Path journalFor(Path dst) {
+        return dst.resolveSibling(dst.getFileName() + JOURNAL_SUFFIX);
+    }
+
+    // Returns the finished chunks, or an empty set if the journal is
+    // missing or was written for a different source size or chunk size
+    private BitSet readJournal(Path journalFile, long size) throws IOException {
+        BitSet done = new BitSet();
+        if (!Files.exists(journalFile)) {
+            return done;
+        }
+        // A crash can leave a torn last line: read complete lines only
+        byte[] bytes = Files.readAllBytes(journalFile);
+        String[] lines = new String(bytes, 0, Journal.completeLength(bytes), StandardCharsets.US_ASCII).split("\n");
+        if (!lines[0].equals(Journal.header(size, chunkSize))) {
+            return done;
+        }
+        long chunkCount = (size + chunkSize - 1) / chunkSize;
+        for (int i = 1; i < lines.length; i++) {
+            try {
+                int chunk = Integer.parseInt(lines[i]);
+                if (chunk >= 0 && chunk < chunkCount) {
+                    done.set(chunk);
+                }
+            } catch (NumberFormatException e) {
+                // Corrupt line; that chunk is simply copied again
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Append-only record of finished chunks: a header line with the source
+     * size and chunk size, then one chunk index per line.
+     */
+    private static final class Journal implements AutoCloseable {
+        private final FileChannel channel;
+
+        private Journal(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        static String header(long size, int chunkSize) {
+            return "size=" + size + " chunk=" + chunkSize;
+        }
+
+        static Journal open(Path file, long size, int chunkSize, boolean append) throws IOException {
+            if (append) {
+                // Drop a torn last line, so that the next entry starts a line of its own
+                long length = completeLength(Files.readAllBytes(file));
+                FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                try {
+                    ch.truncate(length);
+                } catch (IOException | RuntimeException e) {
+                    ch.close();
+                    throw e;
+                }
+                return new Journal(ch);
+            }
+            FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            Journal journal = new Journal(ch);
+            journal.append(header(size, chunkSize));
+            return journal;
+        }
+
+        // Length of the journal up to and including its last newline
+        static int completeLength(byte[] bytes) {
+            int i = bytes.length;
+            while (i > 0 && bytes[i - 1] != '\n') {
+                i--;
+            }
+            return i;
+        }
+
+        void markDone(int chunk) throws IOException {
+            append(Integer.toString(chunk));
+        }
+
+        // Synchronized so concurrent lines don't interleave
+        private synchronized void append(String line) throws IOException {
+            ByteBuffer buf = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII));
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.effectivejava.item9.trywithresources;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Item 9: Prefer try-with-resources to try-finally.
+ *
+ * A bounded pool of AutoCloseable resources. Borrowing returns a Lease,
+ * which is itself AutoCloseable - closing the lease returns the resource
+ * to the pool instead of closing it:
+ *
+ *   try (ResourcePool.Lease<CustomResource> lease = pool.borrow()) {
+ *       lease.get().use();
+ *   }  // Returned to the pool, not closed
+ *
+ * DESIGN:
+ * - Idle resources sit in a lock-free ConcurrentLinkedDeque (LIFO, so the
+ *   most recently used - warmest - resource is handed out first)
+ * - Capacity is a Semaphore; tryAcquire is a single CAS when permits remain
+ * - Resources are validated on borrow and retired after maxLifetime
+ * - A background thread evicts resources idle longer than idleTimeout
+ *
+ * LEAK DETECTION:
+ * - When enabled, each borrow captures a stack trace
+ * - A lease held longer than leakTimeout is reported once, with the
+ *   stack trace of the code that borrowed it
+ */
+public final class ResourcePool<T extends AutoCloseable> implements AutoCloseable {
+
+    /**
+     * Creates a new resource for the pool.
+     */
+    @FunctionalInterface
+    public interface ResourceFactory<T> {
+        T create() throws Exception;
+    }
+
+    private final ResourceFactory<T> factory;
+    private final Predicate<? super T> validator;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final long leakTimeoutNanos;
+    private final Consumer<Throwable> leakListener;
+
+    private final ConcurrentLinkedDeque<Entry<T>> idle = new ConcurrentLinkedDeque<>();
+    private final Set<Lease<T>> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger destroyed = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public static class Builder<T extends AutoCloseable> {
+        // Required parameter
+        private final ResourceFactory<T> factory;
+
+        // Optional parameters - initialized to default values
+        private Predicate<? super T> validator = r -> true;
+        private int maxSize = 8;
+        private long idleTimeoutNanos = 0;     // 0 = never evict idle resources
+        private long maxLifetimeNanos = 0;     // 0 = unlimited lifetime
+        private long leakTimeoutNanos = 0;     // 0 = leak detection off
+        private Consumer<Throwable> leakListener = t -> {
+            System.err.println("Resource leak detected: " + t.getMessage());
+            t.printStackTrace();
+        };
+
+        public Builder(ResourceFactory<T> factory) {
+            this.factory = Objects.requireNonNull(factory);
+        }
+
+        public Builder<T> maxSize(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("Max size must be positive: " + val);
+            }
+            maxSize = val;
+            return this;
+        }
+
+        /**
+         * Sets the check run on an idle resource before it is lent out. A
+         * resource that fails it is destroyed; if the check throws, the
+         * resource is destroyed and borrow rethrows.
+         */
+        public Builder<T> validator(Predicate<? super T> val) {
+            validator = Objects.requireNonNull(val);
+            return this;
+        }
+
+        public Builder<T> idleTimeout(long duration, TimeUnit unit) {
+            idleTimeoutNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        public Builder<T> maxLifetime(long duration, TimeUnit unit) {
+            maxLifetimeNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        public Builder<T> leakDetection(long timeout, TimeUnit unit) {
+            leakTimeoutNanos = unit.toNanos(timeout);
+            return this;
+        }
+
+        public Builder<T> leakListener(Consumer<Throwable> val) {
+            leakListener = Objects.requireNonNull(val);
+            return this;
+        }
+
+        public ResourcePool<T> build() {
+            return new ResourcePool<>(this);
+        }
+    }
+
+    private ResourcePool(Builder<T> builder) {
+        factory = builder.factory;
+        validator = builder.validator;
+        maxSize = builder.maxSize;
+        idleTimeoutNanos = builder.idleTimeoutNanos;
+        maxLifetimeNanos = builder.maxLifetimeNanos;
+        leakTimeoutNanos = builder.leakTimeoutNanos;
+        leakListener = builder.leakListener;
+        permits = new Semaphore(maxSize);
+
+        long period = housekeepingPeriodNanos();
+        if (period > 0) {
+            housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "resource-pool-housekeeper");
+                t.setDaemon(true);
+                return t;
+            });
+            housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.NANOSECONDS);
+        } else {
+            housekeeper = null;
+        }
+    }
+
+    /**
+     * Borrows a resource, waiting indefinitely for one to become available.
+     *
+     * @throws IllegalStateException if the pool is closed or the factory fails
+     */
+    public Lease<T> borrow() throws InterruptedException {
+        permits.acquire();
+        return lease();
+    }
+
+    /**
+     * Borrows a resource, waiting at most the given time for one to become
+     * available.
+     *
+     * @throws TimeoutException if no resource became available in time
+     * @throws IllegalStateException if the pool is closed or the factory fails
+     */
+    public Lease<T> borrow(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        if (!permits.tryAcquire() && !permits.tryAcquire(timeout, unit)) {
+            throw new TimeoutException("No resource available within " + timeout + " " + unit);
+        }
+        return lease();
+    }
+
+    // Caller holds a permit; this method either returns a lease or releases it
+    private Lease<T> lease() {
+        boolean leased = false;
+        try {
+            if (closed) {
+                throw new IllegalStateException("Pool is closed");
+            }
+            Entry<T> entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (!isExpired(entry, System.nanoTime()) && validate(entry)) {
+                    break;
+                }
+                destroy(entry);
+            }
+            if (entry == null) {
+                entry = new Entry<>(factory.create());
+                created.incrementAndGet();
+            }
+            Throwable borrowSite = leakTimeoutNanos > 0
+                    ? new Throwable("Resource borrowed here was not returned") : null;
+            Lease<T> lease = new Lease<>(this, entry, borrowSite);
+            borrowed.add(lease);
+            leased = true;
+            return lease;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to create resource", e);
+        } finally {
+            if (!leased) {
+                permits.release();  // Whatever was thrown, Errors included
+            }
+        }
+    }
+
+    // Destroys the entry if the validator throws: it is out of idle and no lease holds it
+    private boolean validate(Entry<T> entry) {
+        try {
+            return validator.test(entry.resource);
+        } catch (RuntimeException | Error e) {
+            destroy(entry);
+            throw e;
+        }
+    }
+
+    private void giveBack(Lease<T> lease, boolean broken) {
+        borrowed.remove(lease);
+        Entry<T> entry = lease.entry;
+        long now = System.nanoTime();
+        if (broken || closed || isExpired(entry, now)) {
+            destroy(entry);
+        } else {
+            entry.lastReturnedNanos = now;
+            idle.offerFirst(entry);
+            if (closed && idle.remove(entry)) {
+                destroy(entry);  // Raced with close()
+            }
+        }
+        permits.release();
+    }
+
+    private boolean isExpired(Entry<T> entry, long now) {
+        return maxLifetimeNanos > 0 && now - entry.createdNanos >= maxLifetimeNanos;
+    }
+
+    private void destroy(Entry<T> entry) {
+        destroyed.incrementAndGet();
+        try {
+            entry.resource.close();
+        } catch (Exception e) {
+            System.err.println("Failed to close pooled resource: " + e);
+        }
+    }
+
+    private long housekeepingPeriodNanos() {
+        long period = Long.MAX_VALUE;
+        for (long t : new long[] { idleTimeoutNanos, maxLifetimeNanos, leakTimeoutNanos }) {
+            if (t > 0) {
+                period = Math.min(period, t / 2);
+            }
+        }
+        return period == Long.MAX_VALUE ? 0 : Math.max(period, TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    // Runs on the housekeeper thread
+    private void housekeep() {
+        long now = System.nanoTime();
+        for (Entry<T> entry : idle) {
+            boolean stale = idleTimeoutNanos > 0 && now - entry.lastReturnedNanos >= idleTimeoutNanos;
+            // remove() succeeds for only one thread, so a borrower can't also get this entry
+            if ((stale || isExpired(entry, now)) && idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+        if (leakTimeoutNanos > 0) {
+            for (Lease<T> lease : borrowed) {
+                if (now - lease.borrowedNanos >= leakTimeoutNanos && lease.leakReported.compareAndSet(false, true)) {
+                    leakListener.accept(lease.borrowSite);
+                }
+            }
+        }
+    }
+
+    /** Returns the number of idle resources. */
+    public int idleCount() {
+        return idle.size();
+    }
+
+    /** Returns the number of borrowed resources. */
+    public int borrowedCount() {
+        return borrowed.size();
+    }
+
+    /** Returns the number of resources created since the pool was built. */
+    public int createdCount() {
+        return created.get();
+    }
+
+    /** Returns the number of resources closed by the pool. */
+    public int destroyedCount() {
+        return destroyed.get();
+    }
+
+    /**
+     * Closes all idle resources and stops housekeeping. Borrowed resources
+     * are closed when their leases are closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        Entry<T> entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    private static final class Entry<T> {
+        final T resource;
+        final long createdNanos = System.nanoTime();
+        volatile long lastReturnedNanos = createdNanos;
+
+        Entry(T resource) {
+            this.resource = resource;
+        }
+    }
+
+    /**
+     * A borrowed resource. Close it (ideally with try-with-resources) to
+     * return the resource to the pool.
+     */
+    public static final class Lease<T extends AutoCloseable> implements AutoCloseable {
+        private final ResourcePool<T> pool;
+        private final Entry<T> entry;
+        private final Throwable borrowSite;
+        private final long borrowedNanos = System.nanoTime();
+        private final AtomicBoolean returned = new AtomicBoolean();
+        private final AtomicBoolean leakReported = new AtomicBoolean();
+
+        private Lease(ResourcePool<T> pool, Entry<T> entry, Throwable borrowSite) {
+            this.pool = pool;
+            this.entry = entry;
+            this.borrowSite = borrowSite;
+        }
+
+        /**
+         * Returns the borrowed resource.
+         *
+         * @throws IllegalStateException if the lease has been closed
+         */
+        public T get() {
+            if (returned.get()) {
+                throw new IllegalStateException("Lease already returned");
+            }
+            return entry.resource;
+        }
+
+        /**
+         * Closes the underlying resource instead of returning it, for
+         * resources found to be broken while in use.
+         */
+        public void invalidate() {
+            if (returned.compareAndSet(false, true)) {
+                pool.giveBack(this, true);
+            }
+        }
+
+        /**
+         * Returns the resource to the pool. Idempotent.
+         */
+        @Override
+        public void close() {
+            if (returned.compareAndSet(false, true)) {
+                pool.giveBack(this, false);
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.effectivejava.item9.trywithresources;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Demonstration of Item 9: Prefer try-with-resources to try-finally.
@@ -10,6 +12,8 @@ import java.io.*;
  * 2. Benefits of try-with-resources
  * 3. Multiple resources
  * 4. Suppressed exceptions
+ * 5. Zero-copy file copy with FileChannel
+ * 6. Pooling AutoCloseable resources
  */
 public class TryWithResourcesDemo {
     
@@ -70,6 +74,47 @@ public class TryWithResourcesDemo {
         System.out.println("   and can be accessed via getSuppressed().");
         System.out.println();
         
+        // Zero-copy copy engine
+        System.out.println("5. ZERO-COPY FILE COPY:");
+        System.out.println("   FileChannel.transferTo lets the OS copy the bytes (sendfile /");
+        System.out.println("   copy_file_range on Linux) - no trip through a heap byte[]");
+        try {
+            Path src = Files.createTempFile("item9-src", ".txt");
+            Path dst = Files.createTempFile("item9-dst", ".txt");
+            try {
+                Files.writeString(src, "Hello, try-with-resources!");
+                long copied = FileCopyEngine.copy(src, dst);
+                System.out.println("   Copied " + copied + " bytes: " + Files.readString(dst));
+            } finally {
+                Files.deleteIfExists(src);
+                Files.deleteIfExists(dst);
+            }
+        } catch (IOException e) {
+            System.out.println("   Error: " + e.getMessage());
+        }
+        System.out.println("   Run FileCopyBenchmark to compare strategies by file size");
+        System.out.println("   ParallelFileCopier copies large files and directory trees on a");
+        System.out.println("   thread pool - and is itself closed with try-with-resources");
+        System.out.println();
+        
+        // Resource pool
+        System.out.println("6. POOLING AUTOCLOSEABLE RESOURCES:");
+        System.out.println("   Closing a lease returns the resource to the pool instead of closing it");
+        try (ResourcePool<CopyFile.CustomResource> pool =
+                     new ResourcePool.Builder<>(() -> new CopyFile.CustomResource("Pooled"))
+                             .maxSize(2)
+                             .build()) {
+            for (int i = 0; i < 3; i++) {
+                try (ResourcePool.Lease<CopyFile.CustomResource> lease = pool.borrow()) {
+                    lease.get().use();
+                }
+            }
+            System.out.println("   3 borrows, " + pool.createdCount() + " resource(s) created");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println();
+        
         System.out.println("=== Key Takeaways ===");
         System.out.println("1. Always use try-with-resources instead of try-finally");
         System.out.println("2. Resources must implement AutoCloseable");
@@ -5,4 +5,10 @@
  * 
  */
 module effectivejavacursor {
-}
\ No newline at end of file
+    requires static java.compiler;  // ServiceIndexProcessor, compile time only
+
+    uses com.effectivejava.item1.staticfactory.ServiceProvider.Service;
+    provides com.effectivejava.item1.staticfactory.ServiceProvider.Service with
+        com.effectivejava.item1.staticfactory.ServiceProvider.DatabaseService,
+        com.effectivejava.item1.staticfactory.ServiceProvider.EmailService;
+}